@@ -0,0 +1,51 @@
+package org.example.startup.benchmark;
+
+import org.example.startup.security.AuthorityRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * createAuthorities：注册表查表与逐请求构建的对比
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorityBenchmark {
+    private AuthorityRegistry registry;
+    private String roles;
+    private String permissions;
+
+    @Setup
+    public void setUp() {
+        registry = new AuthorityRegistry();
+        roles = "ADMIN";
+        permissions = String.join(",", BenchmarkFixtures.ADMIN_PERMISSIONS);
+    }
+
+    @Benchmark
+    public List<SimpleGrantedAuthority> registry() {
+        return registry.resolve(roles, permissions);
+    }
+
+    @Benchmark
+    public List<SimpleGrantedAuthority> rebuildPerRequest() {
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(roles.split(","))
+                .filter(StringUtils::hasText)
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.trim()))
+                .collect(Collectors.toList());
+        authorities.addAll(Arrays.stream(permissions.split(","))
+                .filter(StringUtils::hasText)
+                .map(permission -> new SimpleGrantedAuthority(permission.trim()))
+                .collect(Collectors.toList()));
+        return authorities;
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.startup.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.startup.filter.JwtAuthenticationFilter;
+import org.example.startup.model.Permission;
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.example.startup.security.AuthMetrics;
+import org.example.startup.security.AuthorityRegistry;
+import org.example.startup.security.PermissionCodec;
+import org.example.startup.security.TokenAuthenticationCache;
+import org.example.startup.service.TokenEpochService;
+import org.example.startup.util.JwtUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+/**
+ * 基准测试公用对象（不启动Spring容器，按字段注入）
+ */
+final class BenchmarkFixtures {
+    static final String SECRET =
+            "myVeryLongSecretKeyForHS512AlgorithmThatMustBeAtLeast64CharactersLong123456";
+
+    // 与data.sql一致的ADMIN权限
+    static final List<String> ADMIN_PERMISSIONS = List.of(
+            "USER_READ", "USER_WRITE", "USER_DELETE", "ROLE_READ", "ROLE_WRITE", "ROLE_DELETE",
+            "PERMISSION_READ", "PERMISSION_WRITE", "PERMISSION_DELETE", "SYSTEM_ADMIN",
+            "PRODUCT_READ", "PRODUCT_WRITE", "PRODUCT_DELETE", "ORDER_READ", "ORDER_WRITE", "STORE_MANAGE");
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtUtil jwtUtil() {
+        JwtUtil jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86_400_000L);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    static User adminUser() {
+        Role role = new Role("ADMIN", "管理员角色");
+        long id = 1;
+        for (String name : ADMIN_PERMISSIONS) {
+            Permission permission = new Permission(name, null, null, null);
+            permission.setId(id++);
+            role.getPermissions().add(permission);
+        }
+        User user = new User("admin", "unused");
+        user.setId(1L);
+        user.setEmail("admin@example.com");
+        user.getRoles().add(role);
+        return user;
+    }
+
+    static AuthMetrics authMetrics() {
+        AuthMetrics metrics = new AuthMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", new SimpleMeterRegistry());
+        metrics.init();
+        return metrics;
+    }
+
+    static JwtAuthenticationFilter filter(JwtUtil jwtUtil, boolean cacheEnabled) {
+        TokenAuthenticationCache cache = new TokenAuthenticationCache();
+        ReflectionTestUtils.setField(cache, "enabled", cacheEnabled);
+        ReflectionTestUtils.setField(cache, "maxSize", 10_000);
+
+        JwtAuthenticationFilter filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", jwtUtil);
+        ReflectionTestUtils.setField(filter, "tokenCache", cache);
+        AuthorityRegistry registry = new AuthorityRegistry();
+        PermissionCodec codec = new PermissionCodec();
+        ReflectionTestUtils.setField(codec, "authorityRegistry", registry);
+        ReflectionTestUtils.setField(filter, "authorityRegistry", registry);
+        ReflectionTestUtils.setField(filter, "permissionCodec", codec);
+        ReflectionTestUtils.setField(filter, "authMetrics", authMetrics());
+        ReflectionTestUtils.setField(filter, "tokenEpochs", new TokenEpochService());
+        return filter;
+    }
+}
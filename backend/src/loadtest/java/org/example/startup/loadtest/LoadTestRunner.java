@@ -0,0 +1,235 @@
+package org.example.startup.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.startup.StartUpApplication;
+import org.example.startup.security.UsernameFilter;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 单机可复现的HTTP负载测试
+ * 以内存H2数据库启动应用，批量生成用户及角色关系，然后对
+ * /api/user/login、/api/user/register、/api/user/profile 施加固定速率的开环负载，
+ * 输出每个接口的吞吐量和HDR直方图延迟分位数。
+ *
+ * 参数（系统属性）：
+ * loadtest.users            预置用户数（默认10000）
+ * loadtest.merchant-every   每隔多少个用户额外分配MERCHANT角色（默认10）
+ * loadtest.duration         每个阶段的持续秒数（默认30）
+ * loadtest.warmup           预热秒数（默认10）
+ * loadtest.login.rate       登录请求速率，次/秒（默认50）
+ * loadtest.register.rate    注册请求速率（默认20）
+ * loadtest.profile.rate     资料请求速率（默认500）
+ * loadtest.phases           执行的阶段，逗号分隔：login,register,profile,mixed（默认全部）
+ * loadtest.output           直方图输出目录（默认target/loadtest）
+ * loadtest.profiles         追加激活的Spring profile，例如virtual（默认无）
+ * loadtest.db-latency-ms    每条SQL模拟的数据库往返延迟，毫秒（默认0）
+ */
+public final class LoadTestRunner {
+    private static final String PASSWORD = "loadtest";
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final int users = Integer.getInteger("loadtest.users", 10_000);
+    private final int merchantEvery = Integer.getInteger("loadtest.merchant-every", 10);
+    private final int durationSeconds = Integer.getInteger("loadtest.duration", 30);
+    private final int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+    private final double loginRate = Double.parseDouble(System.getProperty("loadtest.login.rate", "50"));
+    private final double registerRate = Double.parseDouble(System.getProperty("loadtest.register.rate", "20"));
+    private final double profileRate = Double.parseDouble(System.getProperty("loadtest.profile.rate", "500"));
+    private final List<String> phases = Arrays.asList(
+            System.getProperty("loadtest.phases", "login,register,profile,mixed").split(","));
+    private final String extraProfiles = System.getProperty("loadtest.profiles", "");
+    private final long dbLatencyMillis = Long.getLong("loadtest.db-latency-ms", 0L);
+    private final Path output = Path.of(System.getProperty("loadtest.output", "target/loadtest"));
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private String baseUrl;
+    private final List<String> tokens = new ArrayList<>();
+    private final AtomicLong registerSequence = new AtomicLong();
+
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner().run(args);
+        System.exit(0);
+    }
+
+    private void run(String[] args) throws Exception {
+        String[] appArgs = Arrays.copyOf(args, args.length + 1);
+        appArgs[args.length] = "--spring.profiles.active=loadtest"
+                + (extraProfiles.isBlank() ? "" : "," + extraProfiles);
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(StartUpApplication.class);
+        if (dbLatencyMillis > 0) {
+            builder.initializers(context -> context.getBeanFactory()
+                    .addBeanPostProcessor(new SimulatedLatencyDataSource(dbLatencyMillis)));
+        }
+        ConfigurableApplicationContext context = builder.run(appArgs);
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port;
+            seed(context.getBean(JdbcTemplate.class));
+            // 直接写库的用户不经过注册，重建用户名过滤器后才能登录
+            context.getBean(UsernameFilter.class).rebuild();
+            fetchTokens(Math.min(users, 200));
+            Files.createDirectories(output);
+
+            List<OpenLoopDriver.Result> results = new ArrayList<>();
+            for (String phase : phases) {
+                switch (phase.trim()) {
+                    case "login" -> results.addAll(runPhase("login", loginDriver()));
+                    case "register" -> results.addAll(runPhase("register", registerDriver()));
+                    case "profile" -> results.addAll(runPhase("profile", profileDriver()));
+                    case "mixed" -> results.addAll(runPhase("mixed", loginDriver(), registerDriver(), profileDriver()));
+                    default -> throw new IllegalArgumentException("未知阶段: " + phase);
+                }
+            }
+            report(results);
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * 批量写入用户（共用同一个密码哈希）和角色关系
+     */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        long start = System.nanoTime();
+        String hash = new BCryptPasswordEncoder(10).encode(PASSWORD);
+        List<Object[]> rows = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            rows.add(new Object[]{"lt-user-" + i, hash, "lt-user-" + i + "@example.com"});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, password, email, enabled, created_at) VALUES (?, ?, ?, TRUE, NOW())", rows);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u, roles r "
+                + "WHERE u.username LIKE 'lt-user-%' AND r.name = 'USER'");
+        if (merchantEvery > 0) {
+            jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u, roles r "
+                    + "WHERE u.username LIKE 'lt-user-%' AND MOD(u.id, ?) = 0 AND r.name = 'MERCHANT'", merchantEvery);
+        }
+        System.out.printf("已预置 %d 个用户，用时 %d ms%n", users, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void fetchTokens(int count) throws IOException, InterruptedException {
+        for (int i = 0; i < count; i++) {
+            HttpResponse<String> response = client.send(loginRequest(i), HttpResponse.BodyHandlers.ofString());
+            JsonNode body = JSON.readTree(response.body());
+            if (response.statusCode() != 200 || !body.hasNonNull("token")) {
+                throw new IllegalStateException("获取令牌失败: " + response.statusCode() + " " + response.body());
+            }
+            tokens.add(body.get("token").asText());
+        }
+    }
+
+    private List<OpenLoopDriver.Result> runPhase(String phase, OpenLoopDriver... drivers) throws Exception {
+        if (warmupSeconds > 0) {
+            // 预热阶段的结果丢弃
+            OpenLoopDriver[] warmups = switch (phase) {
+                case "login" -> new OpenLoopDriver[]{loginDriver()};
+                case "register" -> new OpenLoopDriver[]{registerDriver()};
+                case "profile" -> new OpenLoopDriver[]{profileDriver()};
+                default -> new OpenLoopDriver[]{loginDriver(), registerDriver(), profileDriver()};
+            };
+            drive(warmups, warmupSeconds);
+        }
+        System.out.printf("阶段 %s：持续 %d 秒%n", phase, durationSeconds);
+        drive(drivers, durationSeconds);
+        List<OpenLoopDriver.Result> results = new ArrayList<>();
+        for (OpenLoopDriver driver : drivers) {
+            OpenLoopDriver.Result result = driver.result();
+            results.add(new OpenLoopDriver.Result(phase + "/" + result.endpoint(), result.targetRate(),
+                    result.sent(), result.completed(), result.errors(), result.throughput(), result.histogram()));
+        }
+        return results;
+    }
+
+    private static void drive(OpenLoopDriver[] drivers, int seconds) throws InterruptedException {
+        for (OpenLoopDriver driver : drivers) {
+            driver.start();
+        }
+        Thread.sleep(seconds * 1000L);
+        for (OpenLoopDriver driver : drivers) {
+            driver.stop();
+        }
+        for (OpenLoopDriver driver : drivers) {
+            driver.drain(30_000);
+        }
+    }
+
+    private OpenLoopDriver loginDriver() {
+        return new OpenLoopDriver("login", client, loginRate,
+                i -> loginRequest(ThreadLocalRandom.current().nextInt(users)));
+    }
+
+    private OpenLoopDriver registerDriver() {
+        return new OpenLoopDriver("register", client, registerRate, i -> {
+            String username = "lt-reg-" + registerSequence.getAndIncrement();
+            return post("/api/user/register", "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD
+                    + "\",\"email\":\"" + username + "@example.com\"}");
+        });
+    }
+
+    private OpenLoopDriver profileDriver() {
+        return new OpenLoopDriver("profile", client, profileRate, i -> HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/api/user/profile"))
+                .header("Authorization", "Bearer " + tokens.get((int) (i % tokens.size())))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build());
+    }
+
+    private HttpRequest loginRequest(int user) {
+        return post("/api/user/login", "{\"username\":\"lt-user-" + user + "\",\"password\":\"" + PASSWORD + "\"}");
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * 输出汇总表，并为每个接口写出HDR百分位分布文件
+     */
+    private void report(List<OpenLoopDriver.Result> results) throws IOException {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-18s %9s %8s %7s %10s %9s %9s %9s %9s %9s%n",
+                "endpoint", "target/s", "done", "errors", "thrpt/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (OpenLoopDriver.Result result : results) {
+            System.out.printf(Locale.ROOT, "%-18s %9.1f %8d %7d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    result.endpoint(), result.targetRate(), result.completed(), result.errors(), result.throughput(),
+                    result.percentileMillis(50), result.percentileMillis(90), result.percentileMillis(99),
+                    result.percentileMillis(99.9), result.histogram().getMaxValue() / 1e6);
+            Path file = output.resolve(result.endpoint().replace('/', '-') + ".hgrm");
+            try (PrintStream out = new PrintStream(new FileOutputStream(file.toFile()))) {
+                result.histogram().outputPercentileDistribution(out, 1e6);
+            }
+        }
+        System.out.println("百分位分布（毫秒）已写入 " + output.toAbsolutePath());
+    }
+}
@@ -0,0 +1,105 @@
+package org.example.startup.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * 开环负载驱动
+ * 按固定速率在预定时间点发出请求，不等待前一个请求完成；
+ * 延迟从预定发送时间开始计算，避免协调遗漏（coordinated omission）。
+ */
+final class OpenLoopDriver {
+    private final String name;
+    private final HttpClient client;
+    private final LongFunction<HttpRequest> requests;
+    private final double ratePerSecond;
+
+    private final Recorder recorder = new Recorder(TimeUnit.MINUTES.toNanos(1), 3);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder sent = new LongAdder();
+
+    private volatile Thread thread;
+    private volatile boolean running;
+    private long startedAt;
+    private long stoppedAt;
+
+    OpenLoopDriver(String name, HttpClient client, double ratePerSecond, LongFunction<HttpRequest> requests) {
+        this.name = name;
+        this.client = client;
+        this.ratePerSecond = ratePerSecond;
+        this.requests = requests;
+    }
+
+    /**
+     * 在后台线程中按速率发送请求，直到stop()
+     */
+    void start() {
+        running = true;
+        thread = new Thread(this::run, "loadtest-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() throws InterruptedException {
+        running = false;
+        thread.join();
+        stoppedAt = System.nanoTime();
+    }
+
+    private void run() {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond);
+        startedAt = System.nanoTime();
+        for (long i = 0; running; i++) {
+            long intendedAt = startedAt + i * intervalNanos;
+            long delay = intendedAt - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            HttpRequest request = requests.apply(i);
+            sent.increment();
+            CompletableFuture<HttpResponse<Void>> future =
+                    client.sendAsync(request, HttpResponse.BodyHandlers.discarding());
+            future.whenComplete((response, failure) -> {
+                recorder.recordValue(Math.max(0, System.nanoTime() - intendedAt));
+                if (failure != null || response.statusCode() >= 400) {
+                    errors.increment();
+                }
+                completed.increment();
+            });
+        }
+    }
+
+    /**
+     * 等待已发出的请求完成（最多timeout毫秒）
+     */
+    void drain(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (completed.sum() < sent.sum() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    Result result() {
+        Histogram histogram = recorder.getIntervalHistogram();
+        double seconds = (stoppedAt - startedAt) / 1e9;
+        return new Result(name, ratePerSecond, sent.sum(), completed.sum(), errors.sum(),
+                completed.sum() / seconds, histogram);
+    }
+
+    record Result(String endpoint, double targetRate, long sent, long completed, long errors,
+                  double throughput, Histogram histogram) {
+        double percentileMillis(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.example.startup.loadtest;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 为内存H2数据库模拟网络往返延迟
+ * 每次执行SQL前在持有连接的线程上阻塞固定时间，使阻塞JDBC调用在负载测试中的表现接近远程MySQL，
+ * 用于比较平台线程与虚拟线程模式。延迟用parkNanos实现，不会钉住虚拟线程。
+ */
+final class SimulatedLatencyDataSource implements BeanPostProcessor {
+    private final long latencyNanos;
+
+    SimulatedLatencyDataSource(long latencyMillis) {
+        this.latencyNanos = latencyMillis * 1_000_000L;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource);
+        }
+        return bean;
+    }
+
+    private Object proxy(Class<?> type, Object target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (isExecute(method)) {
+                LockSupport.parkNanos(latencyNanos);
+            }
+            Object result = invoke(method, target, args);
+            if (result instanceof Connection connection) {
+                return proxy(Connection.class, connection);
+            }
+            if (result instanceof Statement statement) {
+                return proxy(statementType(statement), statement);
+            }
+            return result;
+        };
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static boolean isExecute(Method method) {
+        return Statement.class.isAssignableFrom(method.getDeclaringClass()) && method.getName().startsWith("execute");
+    }
+
+    private static Class<?> statementType(Statement statement) {
+        if (statement instanceof CallableStatement) {
+            return CallableStatement.class;
+        }
+        if (statement instanceof PreparedStatement) {
+            return PreparedStatement.class;
+        }
+        return Statement.class;
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package org.example.startup.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 启动时间基准：从启动JVM到第一次 /api/user/login 成功的耗时
+ * 对 mvn -Paot package 解压出的应用（target/app）分别以普通JVM、AppCDS、AOT、AOT+AppCDS方式
+ * 各启动若干次，以H2内存库和loadtest配置运行，输出每种方式的最小值和中位数。
+ * CDS归档由本基准在相同类路径下先做一次训练运行生成（pom中的app.jsa以生产配置训练，类路径不含H2，不能直接复用）。
+ * 每次启动后还会发出一组固定请求并记录状态码，各方式的结果必须与普通JVM一致，用于确认AOT处理没有改变安全规则。
+ *
+ * 参数（系统属性）：
+ * startup.app-dir   解压后的应用目录（默认target/app）
+ * startup.runs      每种方式的启动次数（默认5）
+ * startup.modes     启动方式，逗号分隔：jvm,cds,aot,aot-cds（默认全部）
+ * startup.output    训练归档和日志目录（默认target/startup-bench）
+ */
+public final class StartupBenchmark {
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(120);
+
+    private final Path appDir = Path.of(System.getProperty("startup.app-dir", "target/app")).toAbsolutePath();
+    private final int runs = Integer.getInteger("startup.runs", 5);
+    private final List<String> modes = Arrays.asList(
+            System.getProperty("startup.modes", "jvm,cds,aot,aot-cds").split(","));
+    private final Path output = Path.of(System.getProperty("startup.output", "target/startup-bench")).toAbsolutePath();
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        int status = new StartupBenchmark().run();
+        System.exit(status);
+    }
+
+    private int run() throws Exception {
+        Files.createDirectories(output);
+        Map<String, Sample[]> samples = new LinkedHashMap<>();
+        for (String mode : modes) {
+            mode = mode.trim();
+            if (mode.endsWith("cds")) {
+                train(mode);
+            }
+            Sample[] runSamples = new Sample[runs];
+            for (int i = 0; i < runs; i++) {
+                runSamples[i] = start(mode, i);
+                System.out.printf(Locale.ROOT, "%-8s #%d 首次登录成功 %6d ms（Spring报告启动 %5.2f s）%n",
+                        mode, i + 1, runSamples[i].loginMillis, runSamples[i].startedSeconds);
+            }
+            samples.put(mode, runSamples);
+        }
+        return report(samples);
+    }
+
+    /**
+     * 训练运行：启动到上下文刷新完成即退出，退出时写出动态CDS归档
+     */
+    private void train(String mode) throws Exception {
+        Path archive = archive(mode);
+        Files.deleteIfExists(archive);
+        List<String> command = command(mode, freePort());
+        command.add(1, "-XX:ArchiveClassesAtExit=" + archive);
+        command.add(2, "-Dspring.context.exit=onRefresh");
+        Process process = new ProcessBuilder(command)
+                .directory(appDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(output.resolve(mode + "-training.log").toFile())
+                .start();
+        if (!process.waitFor(TIMEOUT_NANOS, TimeUnit.NANOSECONDS) || !Files.exists(archive)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("CDS训练运行失败，见 " + output.resolve(mode + "-training.log"));
+        }
+    }
+
+    private Sample start(String mode, int index) throws Exception {
+        int port = freePort();
+        List<String> command = command(mode, port);
+        if (mode.endsWith("cds")) {
+            command.add(1, "-XX:SharedArchiveFile=" + archive(mode));
+        }
+        Path log = output.resolve(mode + "-" + index + ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(appDir.toFile())
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            String baseUrl = "http://localhost:" + port;
+            String username = "startup-" + index;
+            waitForSuccess(process, post(baseUrl + "/api/user/register",
+                    "{\"username\":\"" + username + "\",\"password\":\"startup\"}"), start);
+            String token = waitForSuccess(process, post(baseUrl + "/api/user/login",
+                    "{\"username\":\"" + username + "\",\"password\":\"startup\"}"), start);
+            long loginMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            String checks = securityChecks(baseUrl, extractToken(token));
+            return new Sample(loginMillis, startedSeconds(log), checks);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private List<String> command(String mode, int port) throws URISyntaxException {
+        String h2 = new File(org.h2.Driver.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+        String config = new File(StartupBenchmark.class.getResource("/application-loadtest.properties").toURI())
+                .getParent();
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (mode.startsWith("aot")) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        // 应用jar清单中的Class-Path会带上lib下的依赖，H2追加在最后，保证训练与运行的类路径一致
+        command.add("-cp");
+        command.add(jar() + File.pathSeparator + h2);
+        command.add("org.example.startup.StartUpApplication");
+        command.add("--spring.profiles.active=loadtest");
+        command.add("--spring.config.additional-location=optional:file:" + config + "/");
+        command.add("--server.port=" + port);
+        command.add("--security.password.bcrypt-strength=4");
+        command.add("--logging.level.org.example.startup.StartUpApplication=INFO");
+        return command;
+    }
+
+    /**
+     * 反复发送请求直到返回200（连接被拒绝说明服务器尚未监听）
+     */
+    private String waitForSuccess(Process process, HttpRequest request, long start) throws Exception {
+        while (System.nanoTime() - start < TIMEOUT_NANOS) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("应用进程已退出，退出码 " + process.exitValue());
+            }
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200) {
+                    return response.body();
+                }
+            } catch (ConnectException e) {
+                // 尚未监听
+            }
+            Thread.sleep(10);
+        }
+        throw new IllegalStateException("等待 " + request.uri() + " 超时");
+    }
+
+    /**
+     * 按固定顺序发出一组请求，返回状态码序列
+     */
+    private String securityChecks(String baseUrl, String token) throws Exception {
+        List<HttpRequest> requests = List.of(
+                get(baseUrl + "/api/user/profile", null),
+                get(baseUrl + "/api/user/profile", token),
+                get(baseUrl + "/api/user/index", token),
+                post(baseUrl + "/api/admin/user-roles", "[]", token),
+                get(baseUrl + "/actuator/health", null),
+                get(baseUrl + "/actuator/metrics", token),
+                get(baseUrl + "/api/user/profile", "not-a-jwt"),
+                post(baseUrl + "/api/user/login", "{\"username\":\"startup-x\",\"password\":\"wrong\"}"));
+        StringBuilder codes = new StringBuilder();
+        for (HttpRequest request : requests) {
+            if (codes.length() > 0) {
+                codes.append(',');
+            }
+            codes.append(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+        }
+        return codes.toString();
+    }
+
+    private int report(Map<String, Sample[]> samples) {
+        System.out.println();
+        System.out.printf(Locale.ROOT, "%-8s %12s %12s %12s %14s  %s%n",
+                "mode", "min ms", "median ms", "max ms", "started(med) s", "security status codes");
+        String expected = null;
+        int status = 0;
+        for (Map.Entry<String, Sample[]> entry : samples.entrySet()) {
+            Sample[] runSamples = entry.getValue();
+            long[] login = Arrays.stream(runSamples).mapToLong(s -> s.loginMillis).sorted().toArray();
+            double[] started = Arrays.stream(runSamples).mapToDouble(s -> s.startedSeconds).sorted().toArray();
+            String checks = runSamples[0].checks;
+            System.out.printf(Locale.ROOT, "%-8s %12d %12d %12d %14.2f  %s%n", entry.getKey(),
+                    login[0], login[login.length / 2], login[login.length - 1], started[started.length / 2], checks);
+            for (Sample sample : runSamples) {
+                if (expected == null) {
+                    expected = sample.checks;
+                } else if (!expected.equals(sample.checks)) {
+                    System.out.println("安全规则行为不一致: " + entry.getKey() + " " + sample.checks + " != " + expected);
+                    status = 1;
+                }
+            }
+        }
+        System.out.println("日志和CDS归档位于 " + output);
+        return status;
+    }
+
+    private Path jar() {
+        try (var files = Files.list(appDir)) {
+            return files.filter(file -> file.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("未找到应用jar，请先运行 mvn -Paot package: " + appDir));
+        } catch (IOException e) {
+            throw new IllegalStateException("无法读取应用目录: " + appDir, e);
+        }
+    }
+
+    private Path archive(String mode) {
+        return output.resolve(mode + ".jsa");
+    }
+
+    private static double startedSeconds(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log, StandardCharsets.UTF_8));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+    }
+
+    private static String extractToken(String body) {
+        Matcher matcher = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"").matcher(body);
+        if (!matcher.find()) {
+            throw new IllegalStateException("登录响应中没有令牌: " + body);
+        }
+        return matcher.group(1);
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static HttpRequest get(String url, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private static HttpRequest post(String url, String body) {
+        return post(url, body, null);
+    }
+
+    private static HttpRequest post(String url, String body, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private record Sample(long loginMillis, double startedSeconds, String checks) {
+    }
+}
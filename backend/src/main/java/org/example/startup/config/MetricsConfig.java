@@ -0,0 +1,197 @@
+package org.example.startup.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.example.startup.security.AuthorityRegistry;
+import org.example.startup.security.LoginThrottle;
+import org.example.startup.security.PasswordHashingService;
+import org.example.startup.security.TokenAuthenticationCache;
+import org.example.startup.security.UsernameFilter;
+import org.example.startup.service.AuthorizationSnapshotCache;
+import org.example.startup.service.LastLoginWriter;
+import org.example.startup.service.ProfileCache;
+import org.example.startup.service.TokenEpochService;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 指标配置类
+ * 把各组件已有的内部计数（LongAdder）注册为Micrometer指标，采集时才读取，不影响业务路径
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * 令牌缓存、授权缓存与令牌纪元
+     */
+    @Bean
+    public MeterBinder authCacheMetrics(TokenAuthenticationCache tokenCache,
+                                        AuthorizationSnapshotCache authorizationCache,
+                                        AuthorityRegistry authorityRegistry,
+                                        TokenEpochService tokenEpochs) {
+        return registry -> {
+            Gauge.builder("auth.token-cache.size", tokenCache, TokenAuthenticationCache::size)
+                    .register(registry);
+            FunctionCounter.builder("auth.token-cache.requests", tokenCache, TokenAuthenticationCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("auth.token-cache.requests", tokenCache, TokenAuthenticationCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("auth.token-cache.evictions", tokenCache, TokenAuthenticationCache::getEvictionCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.token-cache.expirations", tokenCache, TokenAuthenticationCache::getExpirationCount)
+                    .register(registry);
+
+            Gauge.builder("auth.authorization-cache.size", authorizationCache, AuthorizationSnapshotCache::size)
+                    .register(registry);
+            FunctionCounter.builder("auth.authorization-cache.requests", authorizationCache,
+                            AuthorizationSnapshotCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("auth.authorization-cache.requests", authorizationCache,
+                            AuthorizationSnapshotCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+
+            Gauge.builder("auth.authority-registry.combinations", authorityRegistry,
+                            AuthorityRegistry::getCombinationCount)
+                    .register(registry);
+            Gauge.builder("auth.token-epoch.raised-users", tokenEpochs, TokenEpochService::size)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 用户名过滤器：lookups{result=absent}为省去的查库次数，false-positives/lookups{result=present}为实测误判率
+     */
+    @Bean
+    public MeterBinder usernameFilterMetrics(UsernameFilter usernameFilter) {
+        return registry -> {
+            Gauge.builder("auth.username-filter.bytes", usernameFilter, UsernameFilter::getBytes)
+                    .baseUnit("bytes").register(registry);
+            Gauge.builder("auth.username-filter.entries", usernameFilter, UsernameFilter::getEntryCount)
+                    .register(registry);
+            Gauge.builder("auth.username-filter.expected-fpp", usernameFilter, UsernameFilter::getExpectedFpp)
+                    .register(registry);
+            FunctionCounter.builder("auth.username-filter.lookups", usernameFilter, UsernameFilter::getAbsentCount)
+                    .tag("result", "absent").register(registry);
+            FunctionCounter.builder("auth.username-filter.lookups", usernameFilter, UsernameFilter::getPresentCount)
+                    .tag("result", "present").register(registry);
+            FunctionCounter.builder("auth.username-filter.false-positives", usernameFilter,
+                            UsernameFilter::getFalsePositiveCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.username-filter.rebuilds", usernameFilter, UsernameFilter::getRebuildCount)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 用户资料缓存（304响应数见 http.server.requests{uri=/api/user/profile,status=304}）
+     */
+    @Bean
+    public MeterBinder profileCacheMetrics(ProfileCache profileCache) {
+        return registry -> {
+            Gauge.builder("user.profile-cache.size", profileCache, ProfileCache::size)
+                    .register(registry);
+            FunctionCounter.builder("user.profile-cache.requests", profileCache, ProfileCache::getHitCount)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("user.profile-cache.requests", profileCache, ProfileCache::getMissCount)
+                    .tag("result", "miss").register(registry);
+        };
+    }
+
+    /**
+     * 密码哈希线程池与最后登录时间写入器
+     */
+    @Bean
+    public MeterBinder passwordHashingMetrics(PasswordHashingService hashingService, LastLoginWriter lastLoginWriter) {
+        return registry -> {
+            Gauge.builder("auth.password-hashing.queue-depth", hashingService, PasswordHashingService::getQueueDepth)
+                    .register(registry);
+            Gauge.builder("auth.password-hashing.active", hashingService, PasswordHashingService::getActiveCount)
+                    .register(registry);
+            Gauge.builder("auth.password-hashing.strength", hashingService, PasswordHashingService::getStrength)
+                    .register(registry);
+            FunctionCounter.builder("auth.password-hashing.rejected", hashingService,
+                            PasswordHashingService::getRejectedCount)
+                    .register(registry);
+            FunctionTimer.builder("auth.password-hashing.queue-wait", hashingService,
+                            PasswordHashingService::getCompletedCount,
+                            PasswordHashingService::getQueueWaitNanos, TimeUnit.NANOSECONDS)
+                    .register(registry);
+            FunctionTimer.builder("auth.password-hashing.hash", hashingService,
+                            PasswordHashingService::getCompletedCount,
+                            PasswordHashingService::getHashNanos, TimeUnit.NANOSECONDS)
+                    .register(registry);
+
+            Gauge.builder("auth.last-login.pending", lastLoginWriter, LastLoginWriter::getPendingCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.last-login.recorded", lastLoginWriter, LastLoginWriter::getRecordedCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.last-login.written", lastLoginWriter, LastLoginWriter::getWrittenCount)
+                    .register(registry);
+            FunctionCounter.builder("auth.last-login.batches", lastLoginWriter, LastLoginWriter::getBatchCount)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * 读写分离路由（各连接池自身的 hikaricp.* 指标由Spring Boot按pool标签注册）
+     */
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReplicaRoutingPolicy routingPolicy) {
+        return registry -> {
+            FunctionCounter.builder("datasource.routing.reads", routingPolicy, ReplicaRoutingPolicy::getReplicaReadCount)
+                    .tag("route", "replica").register(registry);
+            FunctionCounter.builder("datasource.routing.reads", routingPolicy, ReplicaRoutingPolicy::getPinnedReadCount)
+                    .description("写入后在读己之写窗口内改读主库的只读事务")
+                    .tag("route", "primary").register(registry);
+            FunctionCounter.builder("datasource.routing.writes", routingPolicy, ReplicaRoutingPolicy::getWriteCount)
+                    .register(registry);
+            Gauge.builder("datasource.routing.pinned-sessions", routingPolicy, ReplicaRoutingPolicy::getPinnedSessionCount)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Hibernate二级缓存各区域：cache.gets{cache=区域名,result=hit|miss}、cache.puts、cache.evictions等
+     * 数据来自Caffeine注册的JCache统计MXBean
+     */
+    @Bean
+    public MeterBinder secondLevelCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> {
+            for (String name : hibernateCacheManager.getCacheNames()) {
+                Cache<Object, Object> cache = hibernateCacheManager.getCache(name);
+                JCacheMetrics.monitor(registry, cache, "layer", "hibernate-l2");
+            }
+        };
+    }
+
+    /**
+     * 登录限流：每个被限流的请求都省去了一次查库和BCrypt计算
+     */
+    @Bean
+    public MeterBinder loginThrottleMetrics(LoginThrottle loginThrottle) {
+        return registry -> {
+            FunctionCounter.builder("auth.login.throttled", loginThrottle, LoginThrottle::getAddressThrottledCount)
+                    .tag("key", "address").register(registry);
+            FunctionCounter.builder("auth.login.throttled", loginThrottle, LoginThrottle::getUsernameThrottledCount)
+                    .tag("key", "username").register(registry);
+            FunctionCounter.builder("auth.password-hashing.saved", loginThrottle,
+                            throttle -> throttle.getAddressThrottledCount() + throttle.getUsernameThrottledCount())
+                    .description("因登录限流而省去的密码哈希次数")
+                    .register(registry);
+            Gauge.builder("auth.login.throttle.keys", loginThrottle, LoginThrottle::getAddressKeyCount)
+                    .tag("key", "address").register(registry);
+            Gauge.builder("auth.login.throttle.keys", loginThrottle, LoginThrottle::getUsernameKeyCount)
+                    .tag("key", "username").register(registry);
+            FunctionCounter.builder("auth.login.throttle.evictions", loginThrottle, LoginThrottle::getEvictionCount)
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.startup.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 读写分离路由数据源
+ * 只读事务（@Transactional(readOnly = true)）按ReplicaRoutingPolicy路由到从库，读写事务和事务外的访问走主库。
+ * 外层必须包一层LazyConnectionDataSourceProxy：JPA事务开始时就会取连接，此时只读标记尚未绑定到线程，
+ * 延迟到第一条语句才真正取连接，路由才能看到正确的事务属性；只用到内存快照的只读事务也因此不占用连接。
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final ReplicaRoutingPolicy policy;
+
+    public ReadWriteRoutingDataSource(ReplicaRoutingPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Route.PRIMARY;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return policy.routeRead();
+        }
+        policy.trackWrite();
+        return Route.PRIMARY;
+    }
+}
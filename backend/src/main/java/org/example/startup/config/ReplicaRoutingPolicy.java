@@ -0,0 +1,158 @@
+package org.example.startup.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 读写分离的路由策略
+ * 只读事务默认读从库；会话（已认证时为用户名，匿名时为客户端地址）提交写事务后的一段时间内，
+ * 该会话的只读事务改读主库，保证刚写入的数据对自己立即可见（读己之写），其他会话不受影响。
+ * 已认证会话不按地址区分，同一出口地址（NAT、代理）后的其他用户不会被一起固定到主库。
+ * 窗口应大于从库的正常复制延迟。未配置从库时不参与路由，计数保持为0。
+ */
+@Component
+public class ReplicaRoutingPolicy {
+    // 写入后改读主库的时长（毫秒）
+    @Value("${datasource.routing.read-your-writes-window:2000}")
+    private long windowMillis;
+
+    // 最多记录的会话数，达到上限时清理过期记录，仍无空间则不再固定新会话（由定期清理腾出空间）
+    @Value("${datasource.routing.max-sessions:100000}")
+    private int maxSessions;
+
+    private final Map<String, Long> pinnedUntil = new ConcurrentHashMap<>();
+    // 只允许一个提交线程清理腾出空间，其他线程不等待
+    private final ReentrantLock purgeLock = new ReentrantLock();
+    // 上次清理没有腾出空间时，剩余记录中最早过期的时间，此前再清理也腾不出空间
+    private volatile long nextExpiryAt = System.nanoTime();
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder pinnedReads = new LongAdder();
+    private final LongAdder writes = new LongAdder();
+
+    /**
+     * 为当前只读事务选择数据源
+     */
+    public ReadWriteRoutingDataSource.Route routeRead() {
+        if (!pinnedUntil.isEmpty()) {
+            String key = currentKey();
+            Long until = key != null ? pinnedUntil.get(key) : null;
+            if (until != null && until - System.nanoTime() > 0) {
+                pinnedReads.increment();
+                return ReadWriteRoutingDataSource.Route.PRIMARY;
+            }
+        }
+        replicaReads.increment();
+        return ReadWriteRoutingDataSource.Route.REPLICA;
+    }
+
+    /**
+     * 当前读写事务提交后，在窗口内把本会话的只读事务固定到主库
+     * 读写事务即使只做了查询也按写入处理，宁可多读主库也不读到旧数据
+     */
+    public void trackWrite() {
+        writes.increment();
+        String key = currentKey();
+        if (key == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                long now = System.nanoTime();
+                if (pinnedUntil.size() >= maxSessions && !pinnedUntil.containsKey(key) && !makeRoom(now)) {
+                    return;
+                }
+                pinnedUntil.put(key, now + TimeUnit.MILLISECONDS.toNanos(windowMillis));
+            }
+        });
+    }
+
+    /**
+     * 定期清理已过期的会话
+     */
+    @Scheduled(fixedDelayString = "${datasource.routing.purge-interval:60000}")
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        pinnedUntil.values().removeIf(until -> until - now <= 0);
+        nextExpiryAt = now;
+    }
+
+    /**
+     * 清理过期记录为新会话腾出空间，返回是否有空间
+     * 其他线程正在清理，或距上次清理还没有记录过期时不清理
+     */
+    private boolean makeRoom(long now) {
+        if (now - nextExpiryAt < 0 || !purgeLock.tryLock()) {
+            return pinnedUntil.size() < maxSessions;
+        }
+        try {
+            long earliest = now + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+            for (Iterator<Long> it = pinnedUntil.values().iterator(); it.hasNext(); ) {
+                long until = it.next();
+                if (until - now <= 0) {
+                    it.remove();
+                } else if (until - earliest < 0) {
+                    earliest = until;
+                }
+            }
+            boolean room = pinnedUntil.size() < maxSessions;
+            nextExpiryAt = room ? now : earliest;
+            return room;
+        } finally {
+            purgeLock.unlock();
+        }
+    }
+
+    /**
+     * 当前会话的键：已认证时为用户名，匿名请求为客户端地址（经受信任代理时为真实客户端地址），
+     * 后台线程没有会话
+     */
+    private static String currentKey() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            return "address:" + request.getRemoteAddr();
+        }
+        return null;
+    }
+
+    public int getPinnedSessionCount() {
+        return pinnedUntil.size();
+    }
+
+    public long getReplicaReadCount() {
+        return replicaReads.sum();
+    }
+
+    public long getPinnedReadCount() {
+        return pinnedReads.sum();
+    }
+
+    public long getWriteCount() {
+        return writes.sum();
+    }
+}
@@ -0,0 +1,126 @@
+package org.example.startup.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 已有数据库的增量结构升级
+ * 种子脚本用 CREATE TABLE IF NOT EXISTS 建表，表已存在时脚本中新增的列和索引不会生效，
+ * 生产环境 ddl-auto=validate 会因缺列启动失败。这里逐项按JDBC元数据（information_schema）检查列和索引，
+ * 不存在时才执行ALTER，可重复执行；表不存在时跳过（由种子脚本建表）。
+ * 由SeedScriptInitializer在种子脚本之后执行，与脚本是否因校验和跳过无关，早于Hibernate的结构校验。
+ */
+final class SchemaUpgrades {
+    private static final Logger log = LoggerFactory.getLogger(SchemaUpgrades.class);
+
+    /**
+     * 新增列及其索引，新增项追加在末尾，并同步修改种子脚本中的建表语句
+     */
+    static final List<ColumnUpgrade> COLUMNS = List.of(
+            new ColumnUpgrade("users", "token_epoch", "INT NOT NULL DEFAULT 0", "idx_token_epoch"),
+            new ColumnUpgrade("users", "profile_version", "BIGINT NOT NULL DEFAULT 0", "idx_profile_version"),
+            new ColumnUpgrade("users", "epoch_version", "BIGINT NOT NULL DEFAULT 0", "idx_epoch_version"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    SchemaUpgrades(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 执行缺失的升级，返回执行的ALTER/CREATE INDEX语句数
+     */
+    int apply() {
+        int applied = 0;
+        for (ColumnUpgrade upgrade : COLUMNS) {
+            if (!exists(meta -> hasTable(meta, upgrade.table()))) {
+                continue;
+            }
+            if (!exists(meta -> hasColumn(meta, upgrade.table(), upgrade.column()))) {
+                applied += execute("ALTER TABLE " + upgrade.table() + " ADD COLUMN " + upgrade.column() + " "
+                        + upgrade.definition(), meta -> hasColumn(meta, upgrade.table(), upgrade.column()));
+            }
+            if (upgrade.index() != null && !exists(meta -> hasIndex(meta, upgrade.table(), upgrade.index()))) {
+                applied += execute("CREATE INDEX " + upgrade.index() + " ON " + upgrade.table()
+                        + " (" + upgrade.column() + ")", meta -> hasIndex(meta, upgrade.table(), upgrade.index()));
+            }
+        }
+        return applied;
+    }
+
+    // 多个节点同时升级时，失败后再检查一次：已由其他节点完成则忽略
+    private int execute(String sql, MetaCheck done) {
+        try {
+            jdbcTemplate.execute(sql);
+            log.info("数据库结构已升级: {}", sql);
+            return 1;
+        } catch (DataAccessException e) {
+            if (exists(done)) {
+                return 0;
+            }
+            throw e;
+        }
+    }
+
+    private boolean exists(MetaCheck check) {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                check.test(new Meta(connection))));
+    }
+
+    private static boolean hasTable(Meta meta, String table) throws SQLException {
+        try (ResultSet rs = meta.data().getTables(meta.catalog(), meta.schema(), meta.identifier(table), null)) {
+            return rs.next();
+        }
+    }
+
+    private static boolean hasColumn(Meta meta, String table, String column) throws SQLException {
+        try (ResultSet rs = meta.data().getColumns(meta.catalog(), meta.schema(), meta.identifier(table),
+                meta.identifier(column))) {
+            return rs.next();
+        }
+    }
+
+    private static boolean hasIndex(Meta meta, String table, String index) throws SQLException {
+        try (ResultSet rs = meta.data().getIndexInfo(meta.catalog(), meta.schema(), meta.identifier(table),
+                false, true)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 新增列（definition为列类型及约束，index为该列上的单列索引名，可为null）
+     */
+    record ColumnUpgrade(String table, String column, String definition, String index) {
+    }
+
+    private record Meta(DatabaseMetaData data, String catalog, String schema) {
+        Meta(Connection connection) throws SQLException {
+            this(connection.getMetaData(), connection.getCatalog(), connection.getSchema());
+        }
+
+        // 元数据查询按数据库保存的大小写匹配（H2默认转为大写）
+        String identifier(String name) throws SQLException {
+            return data.storesUpperCaseIdentifiers() ? name.toUpperCase(Locale.ROOT) : name;
+        }
+    }
+
+    @FunctionalInterface
+    private interface MetaCheck {
+        boolean test(Meta meta) throws SQLException;
+    }
+}
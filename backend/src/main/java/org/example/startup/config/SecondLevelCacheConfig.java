@@ -0,0 +1,80 @@
+package org.example.startup.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.example.startup.model.Permission;
+import org.example.startup.model.Role;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.List;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate二级缓存配置
+ * 角色、权限及角色的权限集合是很少变化的参考数据，缓存在进程内（JCache接口，Caffeine实现）。
+ * 所有区域在这里按名称预先创建并限制容量，Hibernate遇到未声明的区域时启动失败（missing_cache_strategy=fail）。
+ * 本节点的写操作由Hibernate按事务失效；其他节点的修改由RbacGraphService轮询到版本变化后整体失效。
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+    public static final String ROLE_REGION = Role.class.getName();
+    public static final String PERMISSION_REGION = Permission.class.getName();
+    public static final String ROLE_PERMISSIONS_REGION = Role.class.getName() + ".permissions";
+    public static final String QUERY_REGION = RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME;
+    public static final String TIMESTAMPS_REGION = RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME;
+
+    // 实体和集合区域的最大条目数
+    @Value("${rbac.second-level-cache.max-entries:1000}")
+    private long maxEntries;
+
+    // 查询结果区域的最大条目数（每个不同的查询参数一条）
+    @Value("${rbac.second-level-cache.query-max-entries:1000}")
+    private long queryMaxEntries;
+
+    /**
+     * 二级缓存使用的CacheManager
+     * 每个应用上下文使用独立的URI，多个上下文（如测试中连接不同库的上下文）互不共享缓存
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-l2-" + ObjectUtils.getIdentityHexString(this)),
+                        getClass().getClassLoader());
+        for (String region : List.of(ROLE_REGION, PERMISSION_REGION, ROLE_PERMISSIONS_REGION)) {
+            createCache(cacheManager, region, maxEntries);
+        }
+        createCache(cacheManager, QUERY_REGION, queryMaxEntries);
+        // 时间戳区域每张表一条，不能被容量淘汰，否则查询缓存无法判断结果是否过期
+        createCache(cacheManager, TIMESTAMPS_REGION, 0);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * 创建区域（maxEntries为0表示不限容量）；统计开启后可通过JMX和Micrometer读取命中率
+     */
+    private static void createCache(CacheManager cacheManager, String name, long maxEntries) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        // Hibernate放入的已是拆解后的缓存条目，不需要再按值复制
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
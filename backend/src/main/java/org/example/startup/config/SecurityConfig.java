@@ -1,6 +1,7 @@
 package org.example.startup.config;
 
 import org.example.startup.filter.JwtAuthenticationFilter;
+import org.example.startup.filter.LoginThrottleFilter;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
@@ -18,6 +19,8 @@ import org.springframework.security.web.authentication.UsernamePasswordAuthentic
 public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private LoginThrottleFilter loginThrottleFilter;
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -27,6 +30,9 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 // 公开接口
                 .requestMatchers("/api/user/login", "/api/user/register").permitAll()
+                // 健康检查公开，其余监控端点仅管理员可访问
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // 管理员接口
                 .requestMatchers("/api/admin/**").hasRole("ADMIN")
                 // 用户管理接口
@@ -34,6 +40,8 @@ public class SecurityConfig {
                 // 其他接口需要认证
                 .anyRequest().authenticated()
             )
+            // 登录限流放在最前，被限流的请求不做任何认证处理
+            .addFilterBefore(loginThrottleFilter, UsernamePasswordAuthenticationFilter.class)
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         return http.build();
     }
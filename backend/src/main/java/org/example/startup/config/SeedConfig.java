@@ -0,0 +1,27 @@
+package org.example.startup.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.autoconfigure.sql.init.SqlInitializationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * 种子数据配置类
+ * 用按校验和跳过的初始化器代替Spring Boot默认的SQL初始化器（默认初始化器在存在同类型Bean时不再注册），
+ * spring.sql.init.* 配置的含义保持不变
+ */
+@Configuration
+@EnableConfigurationProperties(SqlInitializationProperties.class)
+public class SeedConfig {
+
+    @Bean
+    public SeedScriptInitializer seedScriptInitializer(DataSource dataSource, SqlInitializationProperties properties,
+                                                       @Value("${seed.skip-unchanged:true}") boolean skipUnchanged) {
+        return new SeedScriptInitializer(dataSource,
+                SqlDataSourceScriptDatabaseInitializer.getSettings(properties), skipUnchanged);
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.startup.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.sql.init.SqlDataSourceScriptDatabaseInitializer;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按校验和跳过未变化种子脚本的SQL初始化器
+ * 每个脚本执行成功后在seed_history中记录SHA-256校验和，启动时用一条查询读出全部记录，
+ * 内容未变化的脚本不再执行，避免每次重启都重放建表语句和ON DUPLICATE KEY UPDATE种子数据、锁住在用的表。
+ * 脚本本身保持幂等（IF NOT EXISTS / ON DUPLICATE KEY），内容变化后整份重新执行；
+ * 多个节点同时发现变化时会各执行一次，结果相同。
+ * 脚本之后执行SchemaUpgrades，为已存在的表补齐新增的列和索引。
+ */
+public class SeedScriptInitializer extends SqlDataSourceScriptDatabaseInitializer {
+    private static final Logger log = LoggerFactory.getLogger(SeedScriptInitializer.class);
+
+    private static final String CREATE_HISTORY_SQL = "CREATE TABLE IF NOT EXISTS seed_history ("
+            + "script VARCHAR(255) NOT NULL PRIMARY KEY, "
+            + "checksum CHAR(64) NOT NULL, "
+            + "applied_at TIMESTAMP NOT NULL, "
+            + "duration_ms BIGINT NOT NULL)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean skipUnchanged;
+
+    private int appliedCount;
+    private int skippedCount;
+    private int upgradeCount;
+    private long elapsedNanos;
+
+    public SeedScriptInitializer(DataSource dataSource, DatabaseInitializationSettings settings, boolean skipUnchanged) {
+        super(dataSource, settings);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    @Override
+    protected void runScripts(Scripts scripts) {
+        long start = System.nanoTime();
+        Map<String, String> history = loadHistory();
+        for (Resource resource : scripts) {
+            String name = resource.getFilename() != null ? resource.getFilename() : resource.getDescription();
+            String checksum = checksum(resource);
+            if (skipUnchanged && checksum.equals(history.get(name))) {
+                skippedCount++;
+                log.info("种子脚本未变化，跳过: {}", name);
+                continue;
+            }
+            long scriptStart = System.nanoTime();
+            super.runScripts(new Scripts(List.of(resource))
+                    .continueOnError(scripts.isContinueOnError())
+                    .separator(scripts.getSeparator())
+                    .encoding(scripts.getEncoding()));
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - scriptStart);
+            record(name, checksum, millis);
+            appliedCount++;
+            log.info("种子脚本已执行: {}（{} ms）", name, millis);
+        }
+        // 已有表上补齐新增的列和索引（建表语句在表已存在时不生效）
+        upgradeCount += new SchemaUpgrades(jdbcTemplate).apply();
+        elapsedNanos += System.nanoTime() - start;
+        log.info("种子脚本初始化完成：执行{}个，跳过{}个，结构升级{}项，耗时{} ms",
+                appliedCount, skippedCount, upgradeCount, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+    }
+
+    /**
+     * 一条查询读出全部脚本的校验和，表不存在时创建（仅首次启动）
+     */
+    private Map<String, String> loadHistory() {
+        Map<String, String> history = new HashMap<>();
+        RowCallbackHandler handler = rs -> history.put(rs.getString(1), rs.getString(2));
+        try {
+            jdbcTemplate.query("SELECT script, checksum FROM seed_history", handler);
+        } catch (DataAccessException e) {
+            jdbcTemplate.execute(CREATE_HISTORY_SQL);
+        }
+        return history;
+    }
+
+    private void record(String name, String checksum, long millis) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = jdbcTemplate.update(
+                "UPDATE seed_history SET checksum = ?, applied_at = ?, duration_ms = ? WHERE script = ?",
+                checksum, now, millis, name);
+        if (updated == 0) {
+            try {
+                jdbcTemplate.update(
+                        "INSERT INTO seed_history (script, checksum, applied_at, duration_ms) VALUES (?, ?, ?, ?)",
+                        name, checksum, now, millis);
+            } catch (DuplicateKeyException e) {
+                // 其他节点同时执行了同一脚本并已记录
+            }
+        }
+    }
+
+    private static String checksum(Resource resource) {
+        try (InputStream in = resource.getInputStream()) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(in.readAllBytes()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取种子脚本失败: " + resource, e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getAppliedCount() {
+        return appliedCount;
+    }
+
+    public int getSkippedCount() {
+        return skippedCount;
+    }
+
+    public int getUpgradeCount() {
+        return upgradeCount;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+}
@@ -0,0 +1,22 @@
+package org.example.startup.config;
+
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * 虚拟线程模式（virtual profile）启动检查
+ * spring.threads.virtual.enabled 在JDK 21以下不生效，此时只剩调大的连接池和Tomcat连接数，
+ * 请求仍由平台线程池处理，与该profile的容量设置不匹配，因此直接启动失败而不是静默降级。
+ */
+@Configuration
+@Profile("virtual")
+public class VirtualThreadConfig {
+
+    public VirtualThreadConfig() {
+        if (JavaVersion.getJavaVersion().isOlderThan(JavaVersion.TWENTY_ONE)) {
+            throw new IllegalStateException("virtual profile需要JDK 21及以上的运行时，当前为: "
+                    + System.getProperty("java.version"));
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.startup.controller;
+
+import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.example.startup.dto.AssignmentResult;
+import org.example.startup.dto.RolePermissionAssignment;
+import org.example.startup.dto.UserPage;
+import org.example.startup.dto.UserRoleAssignment;
+import org.example.startup.service.RoleService;
+import org.example.startup.service.UserService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 管理接口（/api/admin/** 需要ADMIN角色，见SecurityConfig）
+ */
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    // 单个批量请求最多包含的项数
+    @Value("${admin.bulk.max-items:10000}")
+    private int maxItems;
+
+    // 用户列表每页最多条数
+    @Value("${admin.users.max-page-size:500}")
+    private int maxPageSize;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RoleService roleService;
+
+    /**
+     * 分页列出用户：GET /api/admin/users?size=50&enabled=true&role=USER&usernamePrefix=ab&cursor=...
+     * 翻页时原样带上同样的过滤条件和上一页返回的nextCursor
+     */
+    @GetMapping("/users")
+    public ResponseEntity<Map<String, Object>> listUsers(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(defaultValue = "50") int size,
+                                                         @RequestParam(required = false) Boolean enabled,
+                                                         @RequestParam(required = false) String role,
+                                                         @RequestParam(required = false) String usernamePrefix) {
+        if (size < 1 || size > maxPageSize) {
+            return new ResponseEntity<>(Map.of("message", "每页条数应在1到" + maxPageSize + "之间"), HttpStatus.BAD_REQUEST);
+        }
+        try {
+            UserPage page = userService.listUsers(cursor, size, enabled, role, usernamePrefix);
+            Map<String, Object> response = new HashMap<>();
+            response.put("items", page.getItems());
+            response.put("nextCursor", page.getNextCursor());
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(Map.of("message", e.getMessage()), HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of("message", "查询用户列表异常"), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 批量为用户添加角色，请求体为 [{"username": "...", "role": "..."}, ...]
+     */
+    @PostMapping("/user-roles")
+    public ResponseEntity<Map<String, Object>> assignRoles(@RequestBody List<UserRoleAssignment> assignments) {
+        if (assignments.size() > maxItems) {
+            return tooManyItems();
+        }
+        try {
+            return new ResponseEntity<>(summarize(userService.assignRoles(assignments)), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of("message", "批量分配角色异常，全部未生效"), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    /**
+     * 批量为角色添加权限，请求体为 [{"role": "...", "permission": "..."}, ...]
+     */
+    @PostMapping("/role-permissions")
+    public ResponseEntity<Map<String, Object>> assignPermissions(@RequestBody List<RolePermissionAssignment> assignments) {
+        if (assignments.size() > maxItems) {
+            return tooManyItems();
+        }
+        try {
+            return new ResponseEntity<>(summarize(roleService.assignPermissions(assignments)), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(Map.of("message", "批量分配权限异常，全部未生效"), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> tooManyItems() {
+        return new ResponseEntity<>(Map.of("message", "单次最多提交" + maxItems + "项"), HttpStatus.BAD_REQUEST);
+    }
+
+    private static Map<String, Object> summarize(List<AssignmentResult> results) {
+        int created = 0;
+        int failed = 0;
+        for (AssignmentResult result : results) {
+            if (result.getStatus() == AssignmentResult.Status.CREATED) {
+                created++;
+            } else if (result.getStatus() == AssignmentResult.Status.FAILED) {
+                failed++;
+            }
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("total", results.size());
+        response.put("created", created);
+        response.put("existing", results.size() - created - failed);
+        response.put("failed", failed);
+        response.put("results", results);
+        return response;
+    }
+}
@@ -1,11 +1,15 @@
 package org.example.startup.controller;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.example.startup.service.ProfileCache;
 import org.example.startup.service.UserService;
 import org.example.startup.model.User;
 import org.example.startup.model.Role;
+import org.example.startup.security.PasswordHashingRejectedException;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -14,6 +18,7 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import jakarta.servlet.http.HttpServletRequest;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -55,6 +60,12 @@ public class UserController {
 
                 return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
             }
+        } catch (PasswordHashingRejectedException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "服务繁忙，请稍后重试");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(response);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("message", "登录异常");
@@ -71,6 +82,10 @@ public class UserController {
             } else {
                 return new ResponseEntity<>("用户名已存在，注册失败", HttpStatus.BAD_REQUEST);
             }
+        } catch (PasswordHashingRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body("服务繁忙，请稍后重试");
         } catch (Exception e) {
             return new ResponseEntity<>("注册异常", HttpStatus.INTERNAL_SERVER_ERROR);
         }
@@ -78,24 +93,41 @@ public class UserController {
     
     // ==================== 用户管理接口 ====================
     
+    /**
+     * 当前用户资料
+     * 响应带强ETag，请求的If-None-Match与之匹配时返回304；资料缓存命中时两种响应都不访问数据库
+     */
     @GetMapping("/profile")
     @PreAuthorize("hasRole('USER') or hasRole('ADMIN')")
-    public ResponseEntity<Map<String, Object>> getUserProfile() {
+    public ResponseEntity<Map<String, Object>> getUserProfile(@RequestHeader HttpHeaders requestHeaders) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         String username = auth.getName();
-        User user = userService.findByUsername(username);
-        if (user == null) {
+        ProfileCache.Profile profile = userService.getProfile(username);
+        if (profile == null) {
             return new ResponseEntity<>(Map.of("message", "用户不存在"), HttpStatus.NOT_FOUND);
         }
         
-        Map<String, Object> profile = new HashMap<>();
-        profile.put("id", user.getId());
-        profile.put("username", user.getUsername());
-        profile.put("email", user.getEmail());
-        profile.put("enabled", user.isEnabled());
-        profile.put("createdAt", user.getCreatedAt());
-        profile.put("lastLogin", user.getLastLogin());
-        profile.put("roles", user.getRoles().stream().map(Role::getName).toList());
-        return new ResponseEntity<>(profile, HttpStatus.OK);
+        // 每次都需重新验证；响应随令牌变化，共享缓存不能跨用户复用
+        CacheControl cacheControl = CacheControl.noCache().cachePrivate();
+        if (notModified(requestHeaders.getIfNoneMatch(), profile.getETag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(profile.getETag()).cacheControl(cacheControl).varyBy(HttpHeaders.AUTHORIZATION).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(profile.getETag()).cacheControl(cacheControl).varyBy(HttpHeaders.AUTHORIZATION)
+                .body(profile.getBody());
+    }
+    
+    /**
+     * If-None-Match按弱比较匹配（RFC 9110），*匹配任何已存在的资源
+     */
+    private static boolean notModified(List<String> ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch) {
+            String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if (tag.equals(eTag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -0,0 +1,53 @@
+package org.example.startup.dto;
+
+/**
+ * 批量分配的单项结果，index对应请求数组中的下标
+ */
+public class AssignmentResult {
+
+    public enum Status {
+        // 新写入关联
+        CREATED,
+        // 关联已存在（含同一请求中的重复项），视为成功
+        EXISTS,
+        FAILED
+    }
+
+    private final int index;
+    private final Status status;
+    private final String message;
+
+    private AssignmentResult(int index, Status status, String message) {
+        this.index = index;
+        this.status = status;
+        this.message = message;
+    }
+
+    public static AssignmentResult created(int index) {
+        return new AssignmentResult(index, Status.CREATED, null);
+    }
+
+    public static AssignmentResult exists(int index) {
+        return new AssignmentResult(index, Status.EXISTS, null);
+    }
+
+    public static AssignmentResult failed(int index, String message) {
+        return new AssignmentResult(index, Status.FAILED, message);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status != Status.FAILED;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
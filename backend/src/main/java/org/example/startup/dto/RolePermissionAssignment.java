@@ -0,0 +1,32 @@
+package org.example.startup.dto;
+
+/**
+ * 批量分配请求项：为角色添加权限
+ */
+public class RolePermissionAssignment {
+    private String role;
+    private String permission;
+
+    public RolePermissionAssignment() {}
+
+    public RolePermissionAssignment(String role, String permission) {
+        this.role = role;
+        this.permission = permission;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+
+    public String getPermission() {
+        return permission;
+    }
+
+    public void setPermission(String permission) {
+        this.permission = permission;
+    }
+}
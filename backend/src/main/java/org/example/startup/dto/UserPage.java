@@ -0,0 +1,24 @@
+package org.example.startup.dto;
+
+import java.util.List;
+
+/**
+ * 用户列表的一页，nextCursor为null表示没有下一页
+ */
+public class UserPage {
+    private final List<UserSummary> items;
+    private final String nextCursor;
+
+    public UserPage(List<UserSummary> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<UserSummary> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,32 @@
+package org.example.startup.dto;
+
+/**
+ * 批量分配请求项：为用户添加角色
+ */
+public class UserRoleAssignment {
+    private String username;
+    private String role;
+
+    public UserRoleAssignment() {}
+
+    public UserRoleAssignment(String username, String role) {
+        this.username = username;
+        this.role = role;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+}
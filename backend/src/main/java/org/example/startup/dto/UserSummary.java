@@ -0,0 +1,59 @@
+package org.example.startup.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 用户列表项（只含列表展示所需的列，不是实体，不带密码和关联集合）
+ */
+public class UserSummary {
+    private final long id;
+    private final String username;
+    private final String email;
+    private final boolean enabled;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime lastLogin;
+    private List<String> roles = List.of();
+
+    public UserSummary(long id, String username, String email, boolean enabled,
+                       LocalDateTime createdAt, LocalDateTime lastLogin) {
+        this.id = id;
+        this.username = username;
+        this.email = email;
+        this.enabled = enabled;
+        this.createdAt = createdAt;
+        this.lastLogin = lastLogin;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getLastLogin() {
+        return lastLogin;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public void setRoles(List<String> roles) {
+        this.roles = roles;
+    }
+}
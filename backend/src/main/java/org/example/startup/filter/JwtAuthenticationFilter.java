@@ -4,9 +4,16 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import org.example.startup.service.UserService;
+import org.example.startup.security.AuthMetrics;
+import org.example.startup.security.AuthorityRegistry;
+import org.example.startup.security.PermissionCodec;
+import org.example.startup.security.TokenAuthenticationCache;
+import org.example.startup.service.TokenEpochService;
 import org.example.startup.util.JwtUtil;
+import org.example.startup.util.VerifiedToken;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -17,51 +24,91 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
     @Autowired
     private JwtUtil jwtUtil;
+    @Autowired
+    private TokenAuthenticationCache tokenCache;
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+    @Autowired
+    private PermissionCodec permissionCodec;
+    @Autowired
+    private AuthMetrics authMetrics;
+    @Autowired
+    private TokenEpochService tokenEpochs;
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         try {
+            long stageStart = System.nanoTime();
             String token = getJwtFromRequest(request);
+            stageStart = authMetrics.recordStage(AuthMetrics.Stage.TOKEN_EXTRACTION, stageStart);
             
-            if (StringUtils.hasText(token)) {
-                String username = jwtUtil.getUsernameFromToken(token);
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    // 验证令牌
-                    if (jwtUtil.validateToken(token, username)) {
-                        // 从令牌中获取角色和权限信息
-                        String roles = jwtUtil.getRolesFromToken(token);
-                        String permissions = jwtUtil.getPermissionsFromToken(token);
-                        
+            if (!StringUtils.hasText(token)) {
+                authMetrics.recordFilterOutcome(AuthMetrics.FilterOutcome.ABSENT);
+            } else if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                // 先查已验证令牌缓存
+                TokenAuthenticationCache.Entry cached = null;
+                if (tokenCache.isEnabled()) {
+                    cached = tokenCache.get(token);
+                    stageStart = authMetrics.recordStage(AuthMetrics.Stage.TOKEN_CACHE_LOOKUP, stageStart);
+                }
+                if (cached != null) {
+                    // 缓存条目同样需要检查令牌纪元
+                    if (tokenEpochs.isRevoked(cached.getUserId(), cached.getTokenEpoch())) {
+                        authMetrics.recordFilterOutcome(AuthMetrics.FilterOutcome.REVOKED);
+                    } else {
+                        authMetrics.recordFilterOutcome(AuthMetrics.FilterOutcome.CACHED);
+                        authenticate(request, cached.getUsername(), cached.getAuthorities());
+                    }
+                } else {
+                    // 验证令牌（只解析、验签一次）
+                    VerifiedToken verified = jwtUtil.verifyToken(token);
+                    stageStart = authMetrics.recordStage(AuthMetrics.Stage.JWT_VERIFICATION, stageStart);
+                    if (!verified.isValid() || verified.getUsername() == null) {
+                        authMetrics.recordFilterOutcome(AuthMetrics.FilterOutcome.of(verified.getStatus()));
+                    } else if (tokenEpochs.isRevoked(verified.getUserId(), verified.getTokenEpoch())) {
+                        // 用户被禁用或角色变更后，之前签发的令牌失效
+                        authMetrics.recordFilterOutcome(AuthMetrics.FilterOutcome.REVOKED);
+                    } else {
+                        authMetrics.recordFilterOutcome(AuthMetrics.FilterOutcome.VALID);
                         // 创建权限列表
-                        List<SimpleGrantedAuthority> authorities = createAuthorities(roles, permissions);
-                        
-                        // 创建认证对象
-                        UsernamePasswordAuthenticationToken authentication = 
-                                new UsernamePasswordAuthenticationToken(username, null, authorities);
-                        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                        
-                        // 设置到安全上下文
-                        SecurityContextHolder.getContext().setAuthentication(authentication);
-                        
-                        // 用户通过JWT认证成功
+                        List<SimpleGrantedAuthority> authorities = createAuthorities(verified);
+                        authMetrics.recordStage(AuthMetrics.Stage.AUTHORITY_BUILDING, stageStart);
+                        if (tokenCache.isEnabled()) {
+                            tokenCache.put(token, verified.getUsername(), verified.getUserId(),
+                                    authorities, verified.getTokenEpoch(), verified.getExpiresAtMillis());
+                        }
+                        authenticate(request, verified.getUsername(), authorities);
                     }
                 }
             }
         } catch (Exception e) {
-
+            // 认证失败不中断请求，按匿名请求继续，由授权规则决定是否拒绝
+            authMetrics.recordFilterOutcome(AuthMetrics.FilterOutcome.ERROR);
+            log.warn("JWT认证处理异常，按匿名请求继续: {}", e.toString());
+            log.debug("JWT认证处理异常详情", e);
         }
         
         filterChain.doFilter(request, response);
     }
     
+    /**
+     * 创建认证对象并设置到安全上下文
+     */
+    private void authenticate(HttpServletRequest request, String username,
+                              List<SimpleGrantedAuthority> authorities) {
+        UsernamePasswordAuthenticationToken authentication = 
+                new UsernamePasswordAuthenticationToken(username, null, authorities);
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
+    
     /**
      * 从请求中提取JWT令牌
      */
@@ -74,23 +121,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
     
     /**
-     * 创建权限列表
+     * 创建权限列表（共享的不可变列表），同时兼容位图格式和逗号分隔格式
+     * 位图由PermissionCodec直接解析，逗号分隔的权限串从注册表查表
      */
-    private List<SimpleGrantedAuthority> createAuthorities(String roles, String permissions) {
-        List<SimpleGrantedAuthority> authorities = Arrays.stream(roles.split(","))
-                .filter(StringUtils::hasText)
-                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.trim()))
-                .collect(Collectors.toList());
-        
-        // 添加权限
-        if (StringUtils.hasText(permissions)) {
-            List<SimpleGrantedAuthority> permissionAuthorities = Arrays.stream(permissions.split(","))
-                    .filter(StringUtils::hasText)
-                    .map(permission -> new SimpleGrantedAuthority(permission.trim()))
-                    .collect(Collectors.toList());
-            authorities.addAll(permissionAuthorities);
+    private List<SimpleGrantedAuthority> createAuthorities(VerifiedToken verified) {
+        if (verified.hasCompactPermissions()) {
+            int version = verified.getPermissionVersion() != null ? verified.getPermissionVersion() : 0;
+            return permissionCodec.resolve(verified.getRoles(), version, verified.getPermissionBits());
         }
-        
-        return authorities;
+        return authorityRegistry.resolve(verified.getRoles(), verified.getPermissions());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,157 @@
+package org.example.startup.filter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.example.startup.security.LoginThrottle;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录限流过滤器
+ * 在进入UserController.login之前按客户端地址和用户名取令牌，
+ * 被限流的请求直接返回429，不查库也不计算BCrypt。
+ */
+@Component
+public class LoginThrottleFilter extends OncePerRequestFilter {
+    private static final String LOGIN_PATH = "/api/user/login";
+
+    // 只从不超过该长度的请求体中读取用户名，更长的请求体原样转发
+    private static final int MAX_BODY_BYTES = 4096;
+
+    private static final byte[] THROTTLED_BODY =
+            "{\"message\":\"登录尝试过于频繁，请稍后重试\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Autowired
+    private LoginThrottle loginThrottle;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !loginThrottle.isEnabled()
+                || !"POST".equals(request.getMethod())
+                || !LOGIN_PATH.equals(request.getServletPath());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        // 先按地址限流，无需读取请求体
+        long wait = loginThrottle.acquireForAddress(request.getRemoteAddr());
+        if (wait > 0) {
+            reject(response, wait);
+            return;
+        }
+
+        // 再按用户名限流，读出的请求体前缀交给控制器重新读取
+        ServletInputStream original = request.getInputStream();
+        byte[] head = original.readNBytes(MAX_BODY_BYTES + 1);
+        HttpServletRequest replay = new ReplayBodyRequest(request, head, original);
+        String username = head.length <= MAX_BODY_BYTES ? readUsername(head) : null;
+        if (StringUtils.hasText(username)) {
+            wait = loginThrottle.acquireForUsername(username);
+            if (wait > 0) {
+                reject(response, wait);
+                return;
+            }
+        }
+        filterChain.doFilter(replay, response);
+    }
+
+    /**
+     * 从请求体中读取用户名，格式不正确时返回null，由控制器按原逻辑处理
+     */
+    private String readUsername(byte[] body) {
+        try {
+            JsonNode username = objectMapper.readTree(body).get("username");
+            return username != null && username.isTextual() ? username.asText() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(THROTTLED_BODY.length);
+        response.getOutputStream().write(THROTTLED_BODY);
+    }
+
+    /**
+     * 请求体前缀已被读出的请求，控制器先读缓存的字节，再读剩余部分
+     */
+    private static final class ReplayBodyRequest extends HttpServletRequestWrapper {
+        private final ServletInputStream body;
+
+        ReplayBodyRequest(HttpServletRequest request, byte[] head, InputStream rest) {
+            super(request);
+            InputStream in = new SequenceInputStream(new ByteArrayInputStream(head), rest);
+            this.body = new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = in.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = in.read(b, off, len);
+                    finished = n < 0;
+                    return n;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        }
+    }
+}
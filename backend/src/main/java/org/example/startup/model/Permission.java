@@ -1,11 +1,16 @@
 package org.example.startup.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "permissions")
+// 参考数据，进入二级缓存（区域见SecondLevelCacheConfig）
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class Permission {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
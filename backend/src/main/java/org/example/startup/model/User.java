@@ -6,7 +6,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = @Index(name = "idx_profile_version", columnList = "profile_version"))
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,7 +30,18 @@ public class User {
     @Column(name = "last_login")
     private LocalDateTime lastLogin;
     
-    @ManyToMany(fetch = FetchType.EAGER)
+    // 令牌纪元，只通过TokenEpochService递增，实体不写入
+    @Column(name = "token_epoch", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "INT NOT NULL DEFAULT 0")
+    private int tokenEpoch;
+    
+    // 资料版本，只通过ProfileCache写入（取自全局递增的profile版本号），实体不写入
+    @Column(name = "profile_version", nullable = false, insertable = false, updatable = false,
+            columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long profileVersion;
+    
+    // 延迟加载，需要角色的场景通过UserRepository中的抓取计划一次查出
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "user_roles",
         joinColumns = @JoinColumn(name = "user_id"),
@@ -106,6 +117,18 @@ public class User {
         this.lastLogin = lastLogin;
     }
     
+    public int getTokenEpoch() {
+        return tokenEpoch;
+    }
+    
+    public void setTokenEpoch(int tokenEpoch) {
+        this.tokenEpoch = tokenEpoch;
+    }
+    
+    public long getProfileVersion() {
+        return profileVersion;
+    }
+    
     public Set<Role> getRoles() {
         return roles;
     }
@@ -115,14 +138,13 @@ public class User {
     }
     
     // 便利方法
+    // 只维护拥有方；Role.users是反向集合，访问它会加载该角色的全部成员
     public void addRole(Role role) {
         this.roles.add(role);
-        role.getUsers().add(this);
     }
     
     public void removeRole(Role role) {
         this.roles.remove(role);
-        role.getUsers().remove(this);
     }
     
     public boolean hasRole(String roleName) {
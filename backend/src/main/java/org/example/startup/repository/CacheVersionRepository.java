@@ -0,0 +1,46 @@
+package org.example.startup.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 缓存版本表访问（cache_versions）
+ * 每个内存快照对应一行版本号，写操作在业务事务内递增，其他节点轮询比较
+ */
+@Repository
+public class CacheVersionRepository {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 读取版本号，不存在时返回0
+     */
+    public long getVersion(String name) {
+        List<Long> versions = jdbcTemplate.queryForList(
+                "SELECT version FROM cache_versions WHERE name = ?", Long.class, name);
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+
+    /**
+     * 递增版本号（参与当前事务）
+     */
+    public void increment(String name) {
+        int updated = jdbcTemplate.update(
+                "UPDATE cache_versions SET version = version + 1 WHERE name = ?", name);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO cache_versions (name, version) VALUES (?, 1)", name);
+        }
+    }
+
+    /**
+     * 递增版本号并返回新值（参与当前事务）
+     * 版本行在事务提交前一直被锁定，因此取得的版本号与提交顺序一致
+     */
+    public long incrementAndGet(String name) {
+        increment(name);
+        return getVersion(name);
+    }
+}
@@ -1,7 +1,10 @@
 package org.example.startup.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.startup.model.Permission;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -9,9 +12,13 @@ import java.util.List;
 
 @Repository
 public interface PermissionRepository extends JpaRepository<Permission, Long> {
+    // 按名称和按资源/操作查找走查询缓存
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Permission> findByName(String name);
     List<Permission> findByResource(String resource);
     List<Permission> findByAction(String action);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Permission> findByResourceAndAction(String resource, String action);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByName(String name);
 }
\ No newline at end of file
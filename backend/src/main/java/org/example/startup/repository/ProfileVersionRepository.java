@@ -0,0 +1,48 @@
+package org.example.startup.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 用户资料版本（users.profile_version，参与当前事务）
+ * 资料变化时写入全局递增的profile版本号，其他节点按“版本号大于上次轮询值”查出变化的用户（idx_profile_version）
+ */
+@Repository
+public class ProfileVersionRepository {
+    // IN列表单次最多携带的参数数
+    private static final int IN_CHUNK = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * 把一批用户的资料版本设为version
+     */
+    public void stamp(Collection<Long> userIds, long version) {
+        List<Long> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            MapSqlParameterSource params = new MapSqlParameterSource("version", version)
+                    .addValue("ids", ids.subList(from, Math.min(from + IN_CHUNK, ids.size())));
+            namedJdbcTemplate.update("UPDATE users SET profile_version = :version WHERE id IN (:ids)", params);
+        }
+    }
+
+    /**
+     * 遍历资料版本大于version的用户名
+     */
+    public void forEachChangedSince(long version, Consumer<String> consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getString(1));
+        jdbcTemplate.query("SELECT username FROM users WHERE profile_version > ?", handler, version);
+    }
+}
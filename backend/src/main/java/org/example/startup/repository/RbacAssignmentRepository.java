@@ -0,0 +1,113 @@
+package org.example.startup.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * 批量读写user_roles和role_permissions（参与当前事务）
+ * 名称解析和存在性检查按IN列表成组查询，关联行用JDBC批量插入，
+ * 往返次数与请求项数的关系是“每千项一次查询、每批一次插入”，而不是每项若干次。
+ * 插入用INSERT IGNORE：并发请求刚插入的同一关联不会因主键冲突使整批回滚，按影响行数报告为未插入。
+ */
+@Repository
+public class RbacAssignmentRepository {
+    // IN列表单次最多携带的参数数
+    private static final int IN_CHUNK = 1000;
+
+    // JDBC批量插入的单批行数（MySQL需开启rewriteBatchedStatements才会合并为多值INSERT）
+    @Value("${admin.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * 按用户名批量查找用户ID，不存在的用户名不出现在结果中
+     */
+    public Map<String, Long> findUserIds(Collection<String> usernames) {
+        Map<String, Long> ids = new HashMap<>();
+        RowCallbackHandler handler = rs -> ids.put(rs.getString(2), rs.getLong(1));
+        forEachChunk(usernames, chunk -> namedJdbcTemplate.query(
+                "SELECT id, username FROM users WHERE username IN (:names)", Map.of("names", chunk), handler));
+        return ids;
+    }
+
+    /**
+     * 读取一批用户已有的角色ID
+     */
+    public Map<Long, Set<Long>> findUserRoles(Collection<Long> userIds) {
+        return findPairs("SELECT user_id, role_id FROM user_roles WHERE user_id IN (:ids)", userIds);
+    }
+
+    /**
+     * 读取一批角色已有的权限ID
+     */
+    public Map<Long, Set<Long>> findRolePermissions(Collection<Long> roleIds) {
+        return findPairs("SELECT role_id, permission_id FROM role_permissions WHERE role_id IN (:ids)", roleIds);
+    }
+
+    /**
+     * 批量插入用户角色关联，pairs中每项的前两个元素为{userId, roleId}，返回每项是否实际插入
+     */
+    public boolean[] insertUserRoles(List<long[]> pairs) {
+        return insertPairs("INSERT IGNORE INTO user_roles (user_id, role_id) VALUES (?, ?)", pairs);
+    }
+
+    /**
+     * 批量插入角色权限关联，pairs中每项的前两个元素为{roleId, permissionId}，返回每项是否实际插入
+     */
+    public boolean[] insertRolePermissions(List<long[]> pairs) {
+        return insertPairs("INSERT IGNORE INTO role_permissions (role_id, permission_id) VALUES (?, ?)", pairs);
+    }
+
+    private Map<Long, Set<Long>> findPairs(String sql, Collection<Long> ownerIds) {
+        Map<Long, Set<Long>> pairs = new HashMap<>();
+        RowCallbackHandler handler = rs -> pairs.computeIfAbsent(rs.getLong(1), id -> new HashSet<>()).add(rs.getLong(2));
+        forEachChunk(ownerIds, chunk -> namedJdbcTemplate.query(sql, Map.of("ids", chunk), handler));
+        return pairs;
+    }
+
+    /**
+     * 影响行数为0表示关联已存在（被忽略）；驱动把批量改写为多值INSERT时不返回逐行结果（SUCCESS_NO_INFO），
+     * 按已插入处理，最多多失效一次缓存
+     */
+    private boolean[] insertPairs(String sql, List<long[]> pairs) {
+        boolean[] inserted = new boolean[pairs.size()];
+        if (pairs.isEmpty()) {
+            return inserted;
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(sql, pairs, batchSize, (ps, pair) -> {
+            ps.setLong(1, pair[0]);
+            ps.setLong(2, pair[1]);
+        });
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                inserted[i++] = count != 0;
+            }
+        }
+        return inserted;
+    }
+
+    private static <T> void forEachChunk(Collection<T> values, Consumer<List<T>> consumer) {
+        List<T> list = new ArrayList<>(values);
+        for (int from = 0; from < list.size(); from += IN_CHUNK) {
+            consumer.accept(list.subList(from, Math.min(from + IN_CHUNK, list.size())));
+        }
+    }
+}
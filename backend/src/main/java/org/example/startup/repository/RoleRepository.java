@@ -1,13 +1,27 @@
 package org.example.startup.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.startup.model.Role;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
+    // 按名称查找走查询缓存（结果为实体ID，实体本身取自二级缓存）
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Role> findByName(String name);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     boolean existsByName(String name);
+
+    // 全部角色连同权限一次查询，查询次数与角色数无关（RBAC图重建专用，不走查询缓存）
+    @EntityGraph(attributePaths = "permissions")
+    @Query("select r from Role r")
+    List<Role> findAllWithPermissions();
 }
\ No newline at end of file
@@ -0,0 +1,86 @@
+package org.example.startup.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户令牌纪元访问（users.token_epoch）
+ * 纪元只增不减，非零纪元的用户通常只占极少数。
+ * 递增纪元时同时写入全局递增的token_epoch版本号（users.epoch_version），
+ * 其他节点按“版本号大于上次轮询值”只读出变化的用户（idx_epoch_version）
+ */
+@Repository
+public class TokenEpochRepository {
+    // IN列表单次最多携带的ID数
+    private static final int IN_CHUNK = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * 递增用户纪元并返回新值（参与当前事务），用户不存在时返回null
+     */
+    public Integer increment(long userId, long version) {
+        int updated = jdbcTemplate.update(
+                "UPDATE users SET token_epoch = token_epoch + 1, epoch_version = ? WHERE id = ?", version, userId);
+        if (updated == 0) {
+            return null;
+        }
+        List<Integer> epochs = jdbcTemplate.queryForList(
+                "SELECT token_epoch FROM users WHERE id = ?", Integer.class, userId);
+        return epochs.isEmpty() ? null : epochs.get(0);
+    }
+
+    /**
+     * 批量递增用户纪元（参与当前事务），逐个回调新值，不存在的用户不回调
+     * 每千个用户一条UPDATE和一条SELECT，与逐个递增相比往返次数少三个数量级
+     */
+    public void incrementAll(Collection<Long> userIds, long version, EpochConsumer consumer) {
+        List<Long> ids = new ArrayList<>(userIds);
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getLong(1), rs.getInt(2));
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            MapSqlParameterSource params = new MapSqlParameterSource("version", version)
+                    .addValue("ids", ids.subList(from, Math.min(from + IN_CHUNK, ids.size())));
+            namedJdbcTemplate.update(
+                    "UPDATE users SET token_epoch = token_epoch + 1, epoch_version = :version WHERE id IN (:ids)",
+                    params);
+            namedJdbcTemplate.query("SELECT id, token_epoch FROM users WHERE id IN (:ids)", params, handler);
+        }
+    }
+
+    /**
+     * 逐行读取全部非零纪元
+     */
+    public void forEachRaised(EpochConsumer consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getLong(1), rs.getInt(2));
+        jdbcTemplate.query("SELECT id, token_epoch FROM users WHERE token_epoch > 0", handler);
+    }
+
+    /**
+     * 逐行读取纪元版本大于version的用户（上次轮询之后被吊销的用户），连同用户名
+     */
+    public void forEachRaisedSince(long version, RaisedUserConsumer consumer) {
+        RowCallbackHandler handler = rs -> consumer.accept(rs.getLong(1), rs.getString(2), rs.getInt(3));
+        jdbcTemplate.query("SELECT id, username, token_epoch FROM users WHERE epoch_version > ?", handler, version);
+    }
+
+    @FunctionalInterface
+    public interface EpochConsumer {
+        void accept(long userId, int epoch);
+    }
+
+    @FunctionalInterface
+    public interface RaisedUserConsumer {
+        void accept(long userId, String username, int epoch);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.startup.repository;
+
+import org.example.startup.dto.UserSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 管理端用户列表（键集分页，参与当前事务）
+ * 每页从上一页最后一行的键之后按索引顺序读取limit行，不使用OFFSET，
+ * 查询开销只与页大小有关，与翻到第几页无关；结果直接映射为UserSummary，不加载实体。
+ * 过滤条件很稀疏时（如绝大多数用户都已启用时查询禁用用户），一页需要跳过的行数取决于匹配行的间隔。
+ */
+@Repository
+public class UserListingRepository {
+    private static final String COLUMNS = "u.id, u.username, u.email, u.enabled, u.created_at, u.last_login";
+
+    private static final RowMapper<UserSummary> ROW_MAPPER = (rs, rowNum) -> new UserSummary(
+            rs.getLong(1), rs.getString(2), rs.getString(3), rs.getBoolean(4),
+            toLocalDateTime(rs.getTimestamp(5)), toLocalDateTime(rs.getTimestamp(6)));
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * 按ID顺序读取afterId之后的用户
+     * 不按角色过滤时走主键范围扫描；按角色过滤时从user_roles的role_id索引（外键索引，按user_id有序）驱动
+     */
+    public List<UserSummary> findPageById(long afterId, Boolean enabled, Long roleId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("after", afterId).addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS);
+        if (roleId != null) {
+            sql.append(" FROM user_roles ur JOIN users u ON u.id = ur.user_id WHERE ur.role_id = :roleId AND ur.user_id > :after");
+            params.addValue("roleId", roleId);
+        } else {
+            sql.append(" FROM users u WHERE u.id > :after");
+        }
+        appendEnabled(sql, params, enabled);
+        sql.append(" ORDER BY u.id LIMIT :limit");
+        return namedJdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    /**
+     * 按用户名前缀过滤，按用户名顺序读取afterUsername之后的用户（afterUsername为null表示第一页）
+     * 走idx_username范围扫描；按ID排序则需要读出全部前缀匹配行再排序，开销随匹配数增长
+     */
+    public List<UserSummary> findPageByUsername(String usernamePrefix, String afterUsername,
+                                                Boolean enabled, Long roleId, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("prefix", escapeLike(usernamePrefix) + "%")
+                .addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS)
+                .append(" FROM users u WHERE u.username LIKE :prefix");
+        if (afterUsername != null) {
+            sql.append(" AND u.username > :after");
+            params.addValue("after", afterUsername);
+        }
+        appendEnabled(sql, params, enabled);
+        if (roleId != null) {
+            sql.append(" AND EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)");
+            params.addValue("roleId", roleId);
+        }
+        sql.append(" ORDER BY u.username LIMIT :limit");
+        return namedJdbcTemplate.query(sql.toString(), params, ROW_MAPPER);
+    }
+
+    // enabled为NULL的用户视为禁用，与User.isEnabled一致
+    private static void appendEnabled(StringBuilder sql, MapSqlParameterSource params, Boolean enabled) {
+        if (enabled != null) {
+            sql.append(" AND COALESCE(u.enabled, FALSE) = :enabled");
+            params.addValue("enabled", enabled);
+        }
+    }
+
+    // 转义LIKE通配符（MySQL和H2默认转义符均为反斜杠）
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+}
@@ -1,11 +1,52 @@
 package org.example.startup.repository;
 
+import jakarta.persistence.QueryHint;
 import org.example.startup.model.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     User findByUsernameAndPassword(String username, String password);
     User findByUsername(String username);
+
+    // 登录、个人资料和授权快照：用户连同角色一次查询（权限取自内存RBAC图，不随用户加载）
+    @EntityGraph(attributePaths = "roles")
+    User findWithRolesByUsername(String username);
+
+    // 只判断是否存在，不加载实体
+    boolean existsByUsername(String username);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") long id, @Param("password") String password);
+
+    @Query("select u.id from User u where u.username = :username")
+    Long findIdByUsername(@Param("username") String username);
+
+    // 以下直接读写user_roles，开销与角色成员数无关
+    boolean existsByRolesId(Long roleId);
+    long countByRolesId(Long roleId);
+
+    @Query(value = "SELECT COUNT(*) FROM user_roles WHERE user_id = :userId AND role_id = :roleId", nativeQuery = true)
+    int countUserRole(@Param("userId") Long userId, @Param("roleId") Long roleId);
+
+    // 原生写语句声明影响的表，否则Hibernate会清空整个二级缓存
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "INSERT INTO user_roles (user_id, role_id) VALUES (:userId, :roleId)", nativeQuery = true)
+    int insertUserRole(@Param("userId") Long userId, @Param("roleId") Long roleId);
+
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "user_roles"))
+    @Query(value = "DELETE FROM user_roles WHERE user_id = :userId AND role_id = :roleId", nativeQuery = true)
+    int deleteUserRole(@Param("userId") Long userId, @Param("roleId") Long roleId);
 }
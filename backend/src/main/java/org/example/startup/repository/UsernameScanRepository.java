@@ -0,0 +1,39 @@
+package org.example.startup.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.util.function.Consumer;
+
+/**
+ * 按ID顺序分批读取用户名（供用户名过滤器建立和追赶使用）
+ * 每批从上一批最后一个ID之后按主键范围读取，不持有长游标，单批内存有上限
+ */
+@Repository
+public class UsernameScanRepository {
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * 当前最大用户ID（主键索引末端，不扫描表），没有用户时返回0
+     */
+    public long maxId() {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        return maxId != null ? maxId : 0L;
+    }
+
+    /**
+     * 读取afterId之后的至多limit个用户名，返回本批最后一个用户ID，没有更多用户时返回afterId
+     */
+    public long forEachAfter(long afterId, int limit, Consumer<String> consumer) {
+        long[] lastId = {afterId};
+        RowCallbackHandler handler = rs -> {
+            consumer.accept(rs.getString(2));
+            lastId[0] = rs.getLong(1);
+        };
+        jdbcTemplate.query("SELECT id, username FROM users WHERE id > ? ORDER BY id LIMIT ?", handler, afterId, limit);
+        return lastId[0];
+    }
+}
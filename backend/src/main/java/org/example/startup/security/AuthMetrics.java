@@ -0,0 +1,150 @@
+package org.example.startup.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.example.startup.util.TokenStatus;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证链路指标
+ * 所有计时器和计数器在启动时按枚举一次性注册并保存在EnumMap中，
+ * 记录时只做System.nanoTime()和数组查找，不按请求构造Tag或Timer.Sample，可在生产环境常开。
+ * 指标通过 /actuator/metrics 查看，例如 /actuator/metrics/auth.filter.stage?tag=stage:jwt-verification
+ */
+@Component
+public class AuthMetrics {
+
+    /**
+     * 计时阶段
+     */
+    public enum Stage {
+        // JwtAuthenticationFilter
+        TOKEN_EXTRACTION("auth.filter.stage", "token-extraction"),
+        TOKEN_CACHE_LOOKUP("auth.filter.stage", "token-cache-lookup"),
+        JWT_VERIFICATION("auth.filter.stage", "jwt-verification"),
+        AUTHORITY_BUILDING("auth.filter.stage", "authority-building"),
+        // 登录
+        USER_LOOKUP("auth.login.stage", "user-lookup"),
+        PASSWORD_CHECK("auth.login.stage", "password-check"),
+        LAST_LOGIN_WRITE("auth.login.stage", "last-login-write"),
+        TOKEN_GENERATION("auth.login.stage", "token-generation");
+
+        private final String meterName;
+        private final String tag;
+
+        Stage(String meterName, String tag) {
+            this.meterName = meterName;
+            this.tag = tag;
+        }
+    }
+
+    /**
+     * 过滤器处理结果
+     */
+    public enum FilterOutcome {
+        ABSENT("absent"),
+        CACHED("cached"),
+        VALID("valid"),
+        EXPIRED("expired"),
+        MALFORMED("malformed"),
+        BAD_SIGNATURE("bad-signature"),
+        UNSUPPORTED("unsupported"),
+        REVOKED("revoked"),
+        ERROR("error");
+
+        private final String tag;
+
+        FilterOutcome(String tag) {
+            this.tag = tag;
+        }
+
+        public static FilterOutcome of(TokenStatus status) {
+            switch (status) {
+                case VALID:
+                    return VALID;
+                case EXPIRED:
+                    return EXPIRED;
+                case BAD_SIGNATURE:
+                    return BAD_SIGNATURE;
+                case UNSUPPORTED:
+                    return UNSUPPORTED;
+                case EMPTY:
+                    return ABSENT;
+                default:
+                    return MALFORMED;
+            }
+        }
+    }
+
+    /**
+     * 登录结果
+     */
+    public enum LoginOutcome {
+        SUCCESS("success"),
+        UNKNOWN_USER("unknown-user"),
+        DISABLED_USER("disabled-user"),
+        BAD_PASSWORD("bad-password"),
+        BUSY("busy"),
+        ERROR("error");
+
+        private final String tag;
+
+        LoginOutcome(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<FilterOutcome, Counter> filterCounters = new EnumMap<>(FilterOutcome.class);
+    private final Map<LoginOutcome, Timer> loginTimers = new EnumMap<>(LoginOutcome.class);
+
+    @PostConstruct
+    public void init() {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder(stage.meterName)
+                    .description("认证链路各阶段耗时")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry));
+        }
+        for (FilterOutcome outcome : FilterOutcome.values()) {
+            filterCounters.put(outcome, Counter.builder("auth.filter.requests")
+                    .description("JWT认证过滤器处理结果")
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry));
+        }
+        for (LoginOutcome outcome : LoginOutcome.values()) {
+            loginTimers.put(outcome, Timer.builder("auth.login")
+                    .description("登录总耗时及结果")
+                    .tag("outcome", outcome.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * 记录某阶段从startNanos到现在的耗时，返回当前时刻，便于作为下一阶段的起点
+     */
+    public long recordStage(Stage stage, long startNanos) {
+        long now = System.nanoTime();
+        stageTimers.get(stage).record(now - startNanos, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    public void recordFilterOutcome(FilterOutcome outcome) {
+        filterCounters.get(outcome).increment();
+    }
+
+    public void recordLogin(LoginOutcome outcome, long startNanos) {
+        loginTimers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,121 @@
+package org.example.startup.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 权限对象注册表
+ * 每个角色、每个权限只保留一个不可变的SimpleGrantedAuthority实例；
+ * 每种"角色+权限"组合解析为共享的不可变权限列表，请求路径上只做查表。
+ */
+@Component
+public class AuthorityRegistry {
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    // 最多缓存的组合数，超出后直接构建不再缓存
+    @Value("${security.authority.max-combinations:4096}")
+    private int maxCombinations = 4096;
+
+    private final Map<String, SimpleGrantedAuthority> roleAuthorities = new ConcurrentHashMap<>();
+    private final Map<String, SimpleGrantedAuthority> permissionAuthorities = new ConcurrentHashMap<>();
+
+    // roles -> permissions -> 权限列表，两级查表避免每次拼接键
+    private final Map<String, Map<String, List<SimpleGrantedAuthority>>> combinations = new ConcurrentHashMap<>();
+    private final AtomicInteger combinationCount = new AtomicInteger();
+
+    /**
+     * 根据令牌中的角色串和权限串解析权限列表
+     */
+    public List<SimpleGrantedAuthority> resolve(String roles, String permissions) {
+        String roleKey = roles != null ? roles : "";
+        String permissionKey = permissions != null ? permissions : "";
+
+        Map<String, List<SimpleGrantedAuthority>> byPermissions = combinations.get(roleKey);
+        if (byPermissions != null) {
+            List<SimpleGrantedAuthority> authorities = byPermissions.get(permissionKey);
+            if (authorities != null) {
+                return authorities;
+            }
+        }
+
+        List<SimpleGrantedAuthority> authorities = build(roleKey, permissionKey);
+        if (combinationCount.get() < maxCombinations) {
+            List<SimpleGrantedAuthority> existing = combinations
+                    .computeIfAbsent(roleKey, key -> new ConcurrentHashMap<>())
+                    .putIfAbsent(permissionKey, authorities);
+            if (existing != null) {
+                return existing;
+            }
+            combinationCount.incrementAndGet();
+        }
+        return authorities;
+    }
+
+    /**
+     * 由角色串和权限名构建不可变权限列表（使用共享的权限对象；不缓存组合，由调用方缓存）
+     */
+    public List<SimpleGrantedAuthority> combine(String roles, Collection<String> permissionNames) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>(permissionNames.size() + 1);
+        addRoles(authorities, roles != null ? roles : "");
+        for (String name : permissionNames) {
+            authorities.add(permission(name));
+        }
+        return List.copyOf(authorities);
+    }
+
+    /**
+     * 获取角色对应的权限对象（ROLE_前缀）
+     */
+    public SimpleGrantedAuthority role(String roleName) {
+        return roleAuthorities.computeIfAbsent(roleName,
+                name -> new SimpleGrantedAuthority(ROLE_PREFIX + name));
+    }
+
+    /**
+     * 获取权限名对应的权限对象
+     */
+    public SimpleGrantedAuthority permission(String permissionName) {
+        return permissionAuthorities.computeIfAbsent(permissionName, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * 清空已缓存的组合（角色或权限定义变更后调用）
+     */
+    public void clear() {
+        combinations.clear();
+        combinationCount.set(0);
+    }
+
+    public int getCombinationCount() {
+        return combinationCount.get();
+    }
+
+    private List<SimpleGrantedAuthority> build(String roles, String permissions) {
+        List<SimpleGrantedAuthority> authorities = new ArrayList<>();
+        addRoles(authorities, roles);
+        for (String permission : permissions.split(",")) {
+            String name = permission.trim();
+            if (!name.isEmpty()) {
+                authorities.add(permission(name));
+            }
+        }
+        return List.copyOf(authorities);
+    }
+
+    private void addRoles(List<SimpleGrantedAuthority> authorities, String roles) {
+        for (String role : roles.split(",")) {
+            String name = role.trim();
+            if (!name.isEmpty()) {
+                authorities.add(role(name));
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.example.startup.security;
+
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 登录限流
+ * 按用户名和客户端地址各维护一组令牌桶，桶用GCRA算法实现：每个桶只有一个AtomicLong
+ * （理论到达时间），通过CAS更新，无锁且不分配对象。
+ * 已回满的桶与新桶等价，定期清理；桶数量有上限，达到上限时只清理空闲桶，
+ * 没有空闲桶时新键直接限流（不淘汰仍在限流中的桶，否则攻击者换用大量新键即可重置限流）。
+ */
+@Component
+public class LoginThrottle {
+    // 是否启用登录限流
+    @Value("${security.login-throttle.enabled:true}")
+    private boolean enabled;
+
+    // 同一用户名：突发次数和每分钟补充次数
+    @Value("${security.login-throttle.username.burst:5}")
+    private int usernameBurst;
+
+    @Value("${security.login-throttle.username.per-minute:5}")
+    private int usernamePerMinute;
+
+    // 同一客户端地址：突发次数和每分钟补充次数
+    @Value("${security.login-throttle.address.burst:20}")
+    private int addressBurst;
+
+    @Value("${security.login-throttle.address.per-minute:60}")
+    private int addressPerMinute;
+
+    // 每类键最多保留的桶数
+    @Value("${security.login-throttle.max-keys:100000}")
+    private int maxKeys;
+
+    // 用户名键的最大长度，超出部分截断，防止超长用户名占用内存
+    private static final int MAX_USERNAME_KEY_LENGTH = 64;
+
+    private Limiter usernames;
+    private Limiter addresses;
+
+    @PostConstruct
+    public void init() {
+        usernames = new Limiter(usernameBurst, usernamePerMinute, maxKeys);
+        addresses = new Limiter(addressBurst, addressPerMinute, maxKeys);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 按客户端地址取令牌，返回需要等待的纳秒数，0表示放行
+     */
+    public long acquireForAddress(String address) {
+        return addresses.acquire(address);
+    }
+
+    /**
+     * 按用户名取令牌（忽略大小写），返回需要等待的纳秒数，0表示放行
+     */
+    public long acquireForUsername(String username) {
+        String key = username.length() > MAX_USERNAME_KEY_LENGTH
+                ? username.substring(0, MAX_USERNAME_KEY_LENGTH) : username;
+        return usernames.acquire(key.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * 定期清理已回满的桶
+     */
+    @Scheduled(fixedDelayString = "${security.login-throttle.purge-interval:60000}")
+    public void purgeIdle() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        usernames.purgeIdle(now);
+        addresses.purgeIdle(now);
+    }
+
+    public int getUsernameKeyCount() {
+        return usernames.buckets.size();
+    }
+
+    public int getAddressKeyCount() {
+        return addresses.buckets.size();
+    }
+
+    public long getUsernameThrottledCount() {
+        return usernames.throttled.sum();
+    }
+
+    public long getAddressThrottledCount() {
+        return addresses.throttled.sum();
+    }
+
+    public long getEvictionCount() {
+        return usernames.evictions.sum() + addresses.evictions.sum();
+    }
+
+    /**
+     * 一类键的令牌桶集合
+     */
+    private static final class Limiter {
+        // 补充一个令牌的间隔
+        private final long intervalNanos;
+        // 允许提前消费的时间，即突发容量
+        private final long toleranceNanos;
+        private final int maxKeys;
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder evictions = new LongAdder();
+        // 只允许一个线程扫描腾出空间，其他线程不等待
+        private final ReentrantLock purgeLock = new ReentrantLock();
+        // 上次扫描没有腾出空间时，剩余桶中最早回满的时间，此前再扫描也腾不出空间
+        private volatile long nextIdleAt = Long.MIN_VALUE;
+
+        Limiter(int burst, int perMinute, int maxKeys) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.toleranceNanos = intervalNanos * Math.max(1, burst);
+            this.maxKeys = maxKeys;
+        }
+
+        long acquire(String key) {
+            long now = System.nanoTime();
+            Bucket bucket = buckets.get(key);
+            if (bucket == null) {
+                if (buckets.size() >= maxKeys && !makeRoom(now)) {
+                    // 无法为新键腾出空间时按限流处理（fail closed）
+                    throttled.increment();
+                    return intervalNanos;
+                }
+                bucket = buckets.computeIfAbsent(key, k -> new Bucket());
+            }
+            long wait = bucket.tryAcquire(now, intervalNanos, toleranceNanos);
+            if (wait > 0) {
+                throttled.increment();
+            }
+            return wait;
+        }
+
+        void purgeIdle(long now) {
+            buckets.values().removeIf(bucket -> bucket.isIdle(now));
+            nextIdleAt = Long.MIN_VALUE;
+        }
+
+        /**
+         * 清理空闲桶为新键腾出空间，返回是否有空间
+         * 其他线程正在扫描，或距上次扫描还没有桶回满时不扫描
+         */
+        private boolean makeRoom(long now) {
+            if (now < nextIdleAt || !purgeLock.tryLock()) {
+                return buckets.size() < maxKeys;
+            }
+            try {
+                long earliest = Long.MAX_VALUE;
+                for (Iterator<Bucket> it = buckets.values().iterator(); it.hasNext(); ) {
+                    Bucket bucket = it.next();
+                    long arrival = bucket.theoreticalArrival.get();
+                    if (arrival <= now) {
+                        it.remove();
+                        evictions.increment();
+                    } else {
+                        earliest = Math.min(earliest, arrival);
+                    }
+                }
+                boolean room = buckets.size() < maxKeys;
+                nextIdleAt = room ? Long.MIN_VALUE : earliest;
+                return room;
+            } finally {
+                purgeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * GCRA令牌桶：理论到达时间不超过 now + tolerance 时放行并后移一个间隔
+     */
+    private static final class Bucket {
+        private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+        long tryAcquire(long now, long interval, long tolerance) {
+            while (true) {
+                long current = theoreticalArrival.get();
+                long next = Math.max(current, now) + interval;
+                long wait = next - now - tolerance;
+                if (wait > 0) {
+                    return wait;
+                }
+                if (theoreticalArrival.compareAndSet(current, next)) {
+                    return 0;
+                }
+            }
+        }
+
+        boolean isIdle(long now) {
+            return theoreticalArrival.get() <= now;
+        }
+    }
+}
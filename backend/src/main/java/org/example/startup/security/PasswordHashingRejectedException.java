@@ -0,0 +1,17 @@
+package org.example.startup.security;
+
+/**
+ * 密码哈希线程池已满，请求被拒绝（对应HTTP 503）
+ */
+public class PasswordHashingRejectedException extends RuntimeException {
+    private final int retryAfterSeconds;
+
+    public PasswordHashingRejectedException(int retryAfterSeconds) {
+        super("密码哈希队列已满");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
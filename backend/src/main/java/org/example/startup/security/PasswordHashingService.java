@@ -0,0 +1,217 @@
+package org.example.startup.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 密码哈希服务
+ * BCrypt计算放到独立的有界线程池中执行（默认线程数等于CPU核数），
+ * 避免登录高峰占满Tomcat工作线程；队列满时立即拒绝，由控制器返回503和Retry-After。
+ * 启动时按目标耗时校准BCrypt强度，存量哈希强度与目标不一致时在登录成功后重新哈希。
+ */
+@Component
+public class PasswordHashingService {
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    // 线程数，0表示使用CPU核数
+    @Value("${security.password.pool-size:0}")
+    private int poolSize;
+
+    // 等待队列长度上限
+    @Value("${security.password.queue-capacity:64}")
+    private int queueCapacity;
+
+    // 拒绝时建议客户端等待的秒数
+    @Value("${security.password.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    // 单次哈希的目标耗时（毫秒），用于启动时校准强度
+    @Value("${security.password.target-hash-millis:250}")
+    private long targetHashMillis;
+
+    // 固定BCrypt强度，0表示启动时校准
+    @Value("${security.password.bcrypt-strength:0}")
+    private int configuredStrength;
+
+    // 校准结果的下限
+    @Value("${security.password.min-strength:10}")
+    private int minStrength;
+
+    private static final int MAX_STRENGTH = 16;
+    private static final Pattern BCRYPT_PREFIX = Pattern.compile("\\$2([aby])\\$(\\d\\d)\\$.{53}");
+
+    private BCryptPasswordEncoder encoder;
+    private int strength;
+    private ThreadPoolExecutor executor;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queueWaitNanos = new LongAdder();
+    private final LongAdder hashNanos = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        strength = configuredStrength > 0 ? configuredStrength : calibrate();
+        encoder = new BCryptPasswordEncoder(strength);
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 校验密码
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return execute(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 加密密码
+     */
+    public String encode(CharSequence rawPassword) {
+        return execute(() -> encoder.encode(rawPassword));
+    }
+
+    /**
+     * 存储的哈希是否需要按当前强度重新计算（强度低于当前强度或算法前缀不一致）
+     * 强度高于当前值时不降级：各节点独立校准，强度可能不同，按不等判断会在节点间来回重新哈希
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_PREFIX.matcher(encodedPassword);
+        if (!matcher.matches()) {
+            return true;
+        }
+        return !"a".equals(matcher.group(1)) || Integer.parseInt(matcher.group(2)) < strength;
+    }
+
+    /**
+     * 当前使用的BCrypt强度
+     */
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * 从下限开始逐级测量，选取单次耗时不超过目标的最大强度
+     */
+    private int calibrate() {
+        String sample = "calibration-password";
+        // 预热，减少JIT对测量的影响
+        BCryptPasswordEncoder warmup = new BCryptPasswordEncoder(4);
+        for (int i = 0; i < 20; i++) {
+            warmup.encode(sample);
+        }
+        int chosen = minStrength;
+        for (int candidate = minStrength; candidate <= MAX_STRENGTH; candidate++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(candidate).encode(sample);
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (elapsedMillis > targetHashMillis) {
+                break;
+            }
+            chosen = candidate;
+            // 每级耗时翻倍，下一级必然超出目标时不再测量
+            if (elapsedMillis * 2 > targetHashMillis) {
+                break;
+            }
+        }
+        log.info("BCrypt强度校准结果: {}（目标{}ms）", chosen, targetHashMillis);
+        return chosen;
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                queueWaitNanos.add(startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    hashNanos.add(System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("密码哈希被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException("密码哈希失败", cause);
+        }
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 累计排队等待时间（纳秒）
+     */
+    public long getQueueWaitNanos() {
+        return queueWaitNanos.sum();
+    }
+
+    /**
+     * 累计哈希计算时间（纳秒）
+     */
+    public long getHashNanos() {
+        return hashNanos.sum();
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.startup.security;
+
+import org.example.startup.model.Permission;
+import org.example.startup.repository.PermissionRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 权限位图编解码
+ * 以permissions表的主键作为位序号，把权限集合编码为紧凑的位图（Base64URL），
+ * 并附带权限表版本号。主键自增且不复用，因此旧版本表生成的位图用新表解码仍然正确。
+ * 编码结果的版本号和位图取自同一张权限表；解码直接得到共享的不可变权限列表，不经过逗号分隔的权限串。
+ */
+@Component
+public class PermissionCodec {
+    // 最多缓存的“角色串+位图”解析结果数
+    private static final int MAX_RESOLVED = 4096;
+    // 发现未知权限时，两次重新加载权限表的最小间隔
+    private static final long RELOAD_INTERVAL_MILLIS = 1000L;
+
+    @Autowired
+    private PermissionRepository permissionRepository;
+    @Autowired
+    private AuthorityRegistry authorityRegistry;
+
+    private volatile PermissionTable table;
+    private volatile long lastReloadMillis;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    /**
+     * 当前权限表版本号
+     */
+    public int getVersion() {
+        return currentTable().version;
+    }
+
+    /**
+     * 权限名对应的位序号，未知权限返回-1
+     */
+    public int indexOf(String permissionName) {
+        Integer id = currentTable().idsByName.get(permissionName);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * 把权限名集合转换为位集合，未知权限忽略
+     */
+    public BitSet toBitSet(Collection<String> permissionNames) {
+        return currentTable().toKnownBits(permissionNames);
+    }
+
+    /**
+     * 把权限名集合编码为位图，连同编码所用权限表的版本号
+     */
+    public Encoded encode(Collection<String> permissionNames) {
+        PermissionTable current = currentTable();
+        BitSet bits = current.toBits(permissionNames);
+        if (bits == null) {
+            // 有尚未加载的权限，重新加载后再编码，仍未知的权限忽略
+            current = reload(current);
+            bits = current.toBits(permissionNames);
+            if (bits == null) {
+                bits = current.toKnownBits(permissionNames);
+            }
+        }
+        return new Encoded(current.version, Base64.getUrlEncoder().withoutPadding().encodeToString(bits.toByteArray()));
+    }
+
+    /**
+     * 把令牌中的角色串和权限位图解析为共享的不可变权限列表
+     * 结果按角色串和位图缓存在当前权限表上，权限表重新加载后随之丢弃
+     */
+    public List<SimpleGrantedAuthority> resolve(String roles, int version, String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return authorityRegistry.resolve(roles, "");
+        }
+        String roleKey = roles != null ? roles : "";
+        PermissionTable current = currentTable();
+        List<SimpleGrantedAuthority> authorities = current.lookup(roleKey, encoded);
+        if (authorities != null) {
+            return authorities;
+        }
+        BitSet bits = BitSet.valueOf(Base64.getUrlDecoder().decode(encoded));
+        if (version != current.version && !current.knows(bits)) {
+            // 令牌由更新的权限表签发
+            current = reload(current);
+        }
+        return current.remember(roleKey, encoded, authorityRegistry.combine(roleKey, current.toNames(bits)));
+    }
+
+    /**
+     * 丢弃已加载的权限表，下次使用时重新加载
+     */
+    public void invalidate() {
+        table = null;
+    }
+
+    private PermissionTable currentTable() {
+        PermissionTable current = table;
+        if (current == null) {
+            current = reload(null);
+        }
+        return current;
+    }
+
+    private PermissionTable reload(PermissionTable seen) {
+        reloadLock.lock();
+        try {
+            PermissionTable current = table;
+            long now = System.currentTimeMillis();
+            if (current != null && (current != seen || now - lastReloadMillis < RELOAD_INTERVAL_MILLIS)) {
+                return current;
+            }
+            current = PermissionTable.of(permissionRepository.findAll());
+            lastReloadMillis = now;
+            table = current;
+            return current;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * 某一时刻的权限表快照（位序号 = 权限主键）
+     */
+    private static final class PermissionTable {
+        private final int version;
+        private final String[] namesById;
+        private final Map<String, Integer> idsByName;
+        // 角色串 -> 位图 -> 权限列表，两级查表避免每次拼接键
+        private final Map<String, Map<String, List<SimpleGrantedAuthority>>> resolved = new ConcurrentHashMap<>();
+        private final AtomicInteger resolvedCount = new AtomicInteger();
+
+        private PermissionTable(int version, String[] namesById, Map<String, Integer> idsByName) {
+            this.version = version;
+            this.namesById = namesById;
+            this.idsByName = idsByName;
+        }
+
+        static PermissionTable of(List<Permission> permissions) {
+            permissions.sort(Comparator.comparing(Permission::getId));
+            int maxId = permissions.isEmpty() ? 0 : permissions.get(permissions.size() - 1).getId().intValue();
+            String[] namesById = new String[maxId + 1];
+            Map<String, Integer> idsByName = new HashMap<>();
+            CRC32 crc = new CRC32();
+            for (Permission permission : permissions) {
+                int id = permission.getId().intValue();
+                namesById[id] = permission.getName();
+                idsByName.put(permission.getName(), id);
+                crc.update((id + ":" + permission.getName() + ",").getBytes(StandardCharsets.UTF_8));
+            }
+            return new PermissionTable((int) crc.getValue(), namesById, idsByName);
+        }
+
+        // 有未知权限名时返回null
+        BitSet toBits(Collection<String> names) {
+            BitSet bits = new BitSet(namesById.length);
+            for (String name : names) {
+                Integer id = idsByName.get(name);
+                if (id == null) {
+                    return null;
+                }
+                bits.set(id);
+            }
+            return bits;
+        }
+
+        BitSet toKnownBits(Collection<String> names) {
+            BitSet bits = new BitSet(namesById.length);
+            for (String name : names) {
+                Integer id = idsByName.get(name);
+                if (id != null) {
+                    bits.set(id);
+                }
+            }
+            return bits;
+        }
+
+        boolean knows(BitSet bits) {
+            for (int id = bits.nextSetBit(0); id >= 0; id = bits.nextSetBit(id + 1)) {
+                if (id >= namesById.length || namesById[id] == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // 已删除的权限直接跳过
+        List<String> toNames(BitSet bits) {
+            List<String> names = new ArrayList<>(bits.cardinality());
+            for (int id = bits.nextSetBit(0); id >= 0 && id < namesById.length; id = bits.nextSetBit(id + 1)) {
+                if (namesById[id] != null) {
+                    names.add(namesById[id]);
+                }
+            }
+            return names;
+        }
+
+        List<SimpleGrantedAuthority> lookup(String roles, String encoded) {
+            Map<String, List<SimpleGrantedAuthority>> byBits = resolved.get(roles);
+            return byBits != null ? byBits.get(encoded) : null;
+        }
+
+        // 超出容量后直接返回不再缓存
+        List<SimpleGrantedAuthority> remember(String roles, String encoded, List<SimpleGrantedAuthority> authorities) {
+            if (resolvedCount.get() >= MAX_RESOLVED) {
+                return authorities;
+            }
+            List<SimpleGrantedAuthority> existing = resolved
+                    .computeIfAbsent(roles, key -> new ConcurrentHashMap<>())
+                    .putIfAbsent(encoded, authorities);
+            if (existing != null) {
+                return existing;
+            }
+            resolvedCount.incrementAndGet();
+            return authorities;
+        }
+    }
+
+    /**
+     * 编码结果（不可变）：版本号和位图来自同一张权限表
+     */
+    public static final class Encoded {
+        private final int version;
+        private final String bits;
+
+        Encoded(int version, String bits) {
+            this.version = version;
+            this.bits = bits;
+        }
+
+        public int getVersion() {
+            return version;
+        }
+
+        public String getBits() {
+            return bits;
+        }
+    }
+}
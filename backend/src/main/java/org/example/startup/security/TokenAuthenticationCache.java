@@ -0,0 +1,206 @@
+package org.example.startup.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已验证令牌缓存
+ * 以令牌的SHA-256摘要为键，缓存已构建好的权限列表，避免重复验签和JSON解析。
+ * 条目最晚在令牌自身的exp时间失效，过期条目由定时任务清理；容量有上限，超出时随机淘汰。
+ */
+@Component
+public class TokenAuthenticationCache {
+    // 是否启用缓存（默认关闭）
+    @Value("${jwt.cache.enabled:false}")
+    private boolean enabled;
+
+    // 最大缓存条目数，按活跃会话数设置
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    private final Map<ByteBuffer, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    // 同一时刻只有一个请求线程执行淘汰，其余线程直接写入（短时间内可略超容量）
+    private final ReentrantLock evictLock = new ReentrantLock();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    });
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 查找缓存条目，未命中或已过期时返回null
+     */
+    public Entry get(String token) {
+        ByteBuffer key = digest(token);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (entries.remove(key, entry)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * 缓存已验证令牌的认证信息
+     */
+    public void put(String token, String username, Long userId,
+                    List<SimpleGrantedAuthority> authorities, int tokenEpoch, long expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        if (expiresAtMillis <= now) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+        entries.put(digest(token), new Entry(username, userId, List.copyOf(authorities), tokenEpoch, expiresAtMillis));
+    }
+
+    /**
+     * 定期清理已过期的条目
+     */
+    @Scheduled(fixedDelayString = "${jwt.cache.purge-interval:60000}")
+    public void purgeExpired() {
+        if (!enabled || entries.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(entry -> {
+            if (entry.isExpired(now)) {
+                expirations.increment();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 淘汰约十分之一的条目
+     * 在请求线程上执行，不做全表的过期扫描（由purgeExpired定时执行）
+     */
+    private void makeRoom() {
+        if (!evictLock.tryLock()) {
+            return;
+        }
+        try {
+            int excess = entries.size() - maxSize + Math.max(1, maxSize / 10);
+            Iterator<ByteBuffer> it = entries.keySet().iterator();
+            while (excess-- > 0 && it.hasNext()) {
+                it.next();
+                it.remove();
+                evictions.increment();
+            }
+        } finally {
+            evictLock.unlock();
+        }
+    }
+
+    private static ByteBuffer digest(String token) {
+        MessageDigest md = SHA256.get();
+        return ByteBuffer.wrap(md.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    /**
+     * 缓存条目（不可变）
+     */
+    public static final class Entry {
+        private final String username;
+        private final Long userId;
+        private final List<SimpleGrantedAuthority> authorities;
+        private final int tokenEpoch;
+        private final long expiresAtMillis;
+
+        Entry(String username, Long userId, List<SimpleGrantedAuthority> authorities, int tokenEpoch,
+              long expiresAtMillis) {
+            this.username = username;
+            this.userId = userId;
+            this.authorities = authorities;
+            this.tokenEpoch = tokenEpoch;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public List<SimpleGrantedAuthority> getAuthorities() {
+            return authorities;
+        }
+
+        public int getTokenEpoch() {
+            return tokenEpoch;
+        }
+
+        public long getExpiresAtMillis() {
+            return expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+package org.example.startup.security;
+
+import org.example.startup.repository.UsernameScanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * 用户名布隆过滤器
+ * 启动时按ID分批读取全部用户名建立，注册时加入；登录和注册前先查过滤器，确定不存在的用户名不再查库
+ * （撞库和批量注册时绝大多数用户名都不存在）。只会误报存在，不会漏报：
+ * 误报时照常查库，漏报只可能发生在其他节点刚注册、本节点尚未追赶到的几秒内。
+ * 其他节点的注册由定时追赶按ID读取；实际条目数超过设计容量时误判率上升，追赶时发现即按当前用户数重建，
+ * 另外定期全量重建，补上追赶遗漏的用户。
+ */
+@Component
+public class UsernameFilter implements SmartInitializingSingleton {
+    private static final Logger log = LoggerFactory.getLogger(UsernameFilter.class);
+
+    // 单次读取的用户数
+    private static final int SCAN_BATCH = 10_000;
+    // 最小设计容量；重建时按当前最大用户ID的两倍设计，留出增长空间
+    private static final long MIN_CAPACITY = 10_000;
+    // 追赶时回看的ID数：自增ID分配后晚于更大ID提交的注册仍能被读到
+    private static final long CATCH_UP_OVERLAP = 100;
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // 是否启用用户名过滤器
+    @Value("${security.username-filter.enabled:true}")
+    private boolean enabled;
+
+    // 目标误判率（按设计容量计算位数和哈希函数个数）
+    @Value("${security.username-filter.fpp:0.01}")
+    private double fpp;
+
+    @Autowired
+    private UsernameScanRepository scanRepository;
+
+    // null表示尚未建立，此时所有用户名都视为可能存在
+    private volatile Bloom current;
+    // 重建期间注册的用户名同时加入新过滤器
+    private volatile Bloom building;
+    // 已读取到的最大用户ID
+    private volatile long scannedId;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    private final LongAdder absentCount = new LongAdder();
+    private final LongAdder presentCount = new LongAdder();
+    private final LongAdder falsePositiveCount = new LongAdder();
+    private final LongAdder rebuildCount = new LongAdder();
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            // 建立失败时不启用过滤，由定期重建再次尝试
+            log.warn("用户名过滤器建立失败，暂不过滤", e);
+        }
+    }
+
+    /**
+     * 用户名是否可能存在；返回false时一定不存在
+     */
+    public boolean mightContain(String username) {
+        Bloom filter = current;
+        if (filter == null || username == null) {
+            return true;
+        }
+        boolean present = filter.mightContain(key(username));
+        (present ? presentCount : absentCount).increment();
+        return present;
+    }
+
+    /**
+     * 过滤器判断可能存在、查库后确实不存在时调用
+     */
+    public void recordFalsePositive() {
+        if (current != null) {
+            falsePositiveCount.increment();
+        }
+    }
+
+    /**
+     * 在注册事务提交后加入用户名（不在事务中时立即加入）
+     * 提交后才加入：与重建并发时，要么重建的读取能看到这一行，要么这里能看到正在建立的新过滤器
+     */
+    public void addAfterCommit(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(username);
+                }
+            });
+        } else {
+            add(username);
+        }
+    }
+
+    private void add(String username) {
+        String key = key(username);
+        // 先读building再读current，见addAfterCommit
+        Bloom next = building;
+        if (next != null) {
+            next.add(key);
+        }
+        Bloom filter = current;
+        if (filter != null) {
+            filter.add(key);
+        }
+    }
+
+    /**
+     * 追赶其他节点注册的用户；条目数超过设计容量时重建
+     */
+    @Scheduled(fixedDelayString = "${security.username-filter.poll-interval:1000}")
+    public void catchUp() {
+        if (current == null || !rebuildLock.tryLock()) {
+            return;
+        }
+        try {
+            long maxId = scanRepository.maxId();
+            if (maxId <= scannedId) {
+                return;
+            }
+            Bloom filter = current;
+            scannedId = Math.max(scannedId, scan(Math.max(0, scannedId - CATCH_UP_OVERLAP), filter::add));
+            if (filter.entries.sum() > filter.capacity) {
+                rebuild();
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * 定期全量重建：按当前用户数重新设计容量，并补上追赶遗漏的用户
+     */
+    @Scheduled(initialDelayString = "${security.username-filter.rebuild-interval:3600000}",
+            fixedDelayString = "${security.username-filter.rebuild-interval:3600000}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 读取全部用户名建立新过滤器后替换当前过滤器
+     */
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            long start = System.nanoTime();
+            Bloom next = new Bloom(Math.max(MIN_CAPACITY, scanRepository.maxId() * 2), fpp);
+            building = next;
+            long lastId = scan(0, next::add);
+            current = next;
+            scannedId = lastId;
+            rebuildCount.increment();
+            log.info("用户名过滤器已建立：{}个用户名，{} KB，{}个哈希函数，耗时{} ms", next.entries.sum(),
+                    next.bytes() / 1024, next.hashCount, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            building = null;
+            rebuildLock.unlock();
+        }
+    }
+
+    // 从afterId之后读到末尾，返回最后一个用户ID
+    private long scan(long afterId, Consumer<String> consumer) {
+        long lastId = afterId;
+        long previous;
+        do {
+            previous = lastId;
+            lastId = scanRepository.forEachAfter(previous, SCAN_BATCH, username -> consumer.accept(key(username)));
+        } while (lastId != previous);
+        return lastId;
+    }
+
+    /**
+     * 与数据库用户名比较规则对齐的键：MySQL默认排序规则忽略大小写、重音和尾部空格，
+     * 这里折叠得更粗只会增加误报，不会漏报
+     */
+    static String key(String username) {
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(username, Normalizer.Form.NFKD)).replaceAll("");
+        return folded.toLowerCase(Locale.ROOT).stripTrailing();
+    }
+
+    public long getBytes() {
+        Bloom filter = current;
+        return filter != null ? filter.bytes() : 0;
+    }
+
+    public long getEntryCount() {
+        Bloom filter = current;
+        return filter != null ? filter.entries.sum() : 0;
+    }
+
+    /**
+     * 按当前条目数估算的误判率
+     */
+    public double getExpectedFpp() {
+        Bloom filter = current;
+        return filter != null ? filter.expectedFpp() : 0;
+    }
+
+    public long getAbsentCount() {
+        return absentCount.sum();
+    }
+
+    public long getPresentCount() {
+        return presentCount.sum();
+    }
+
+    public long getFalsePositiveCount() {
+        return falsePositiveCount.sum();
+    }
+
+    public long getRebuildCount() {
+        return rebuildCount.sum();
+    }
+
+    /**
+     * 位数组（AtomicLongArray，CAS置位，读写无锁）
+     * 两个64位哈希按 h1 + i*h2 组合出k个位置（Kirsch-Mitzenmacher）
+     */
+    private static final class Bloom {
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final long capacity;
+        // 实际置位了新位的加入次数，重复加入不计
+        private final LongAdder entries = new LongAdder();
+
+        Bloom(long capacity, double fpp) {
+            long bits = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+            this.capacity = capacity;
+        }
+
+        void add(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            boolean changed = false;
+            for (int i = 0; i < hashCount; i++) {
+                changed |= set(Math.floorMod(h1 + i * h2, bitCount));
+            }
+            if (changed) {
+                entries.increment();
+            }
+        }
+
+        boolean mightContain(String key) {
+            long h1 = hash(key);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long index = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean set(long index) {
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long old;
+            do {
+                old = words.get(word);
+                if ((old & mask) != 0) {
+                    return false;
+                }
+            } while (!words.compareAndSet(word, old, old | mask));
+            return true;
+        }
+
+        long bytes() {
+            return words.length() * 8L;
+        }
+
+        double expectedFpp() {
+            return Math.pow(1 - Math.exp(-(double) hashCount * entries.sum() / bitCount), hashCount);
+        }
+
+        private static long hash(String key) {
+            long h = 0xCBF29CE484222325L ^ key.length();
+            for (int i = 0; i < key.length(); i++) {
+                h = (h ^ key.charAt(i)) * 0x100000001B3L;
+            }
+            return mix(h);
+        }
+
+        // MurmurHash3的64位终结混合
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+            h *= 0xC4CEB9FE1A85EC53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
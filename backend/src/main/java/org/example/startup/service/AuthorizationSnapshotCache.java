@@ -0,0 +1,208 @@
+package org.example.startup.service;
+
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.example.startup.security.PermissionCodec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 用户授权快照缓存
+ * 每个用户缓存一份不可变的角色名集合和权限位集合，hasRole/hasPermission命中时不访问数据库。
+ * 用户角色、启用状态或角色权限变更时，在事务提交后精确失效。
+ * 其他节点的修改：用户角色变化都会吊销令牌，由TokenEpochService轮询到被吊销的用户后失效；
+ * 角色权限变化由RbacGraphService轮询到RBAC版本变化后全部失效。
+ * 不存在的用户不缓存，其他节点注册同名用户后无需失效。
+ */
+@Component
+public class AuthorizationSnapshotCache {
+    // 最大缓存用户数
+    @Value("${security.authorization-cache.max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private PermissionCodec permissionCodec;
+    @Autowired
+    @Lazy
+    private RbacGraphService rbacGraph;
+
+    private final Map<String, Snapshot> snapshots = new ConcurrentHashMap<>();
+
+    // 每次失效递增；加载期间发生失效的结果不写入缓存，避免写回旧数据
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 获取缓存的快照，未命中返回null
+     */
+    public Snapshot get(String username) {
+        Snapshot snapshot = snapshots.get(username);
+        if (snapshot == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return snapshot;
+    }
+
+    /**
+     * 开始加载前记录当前代数
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 由用户实体构建快照并写入缓存（user为null表示用户不存在，返回空快照且不缓存）
+     */
+    public Snapshot put(String username, User user, long loadedGeneration) {
+        if (user == null) {
+            return Snapshot.NONE;
+        }
+        Set<String> roles = user.getRoles().stream().map(Role::getName).collect(Collectors.toUnmodifiableSet());
+        // 角色对应的权限取自内存RBAC图
+        Snapshot snapshot = new Snapshot(roles, permissionCodec.toBitSet(rbacGraph.getPermissionNames(roles)));
+        if (generation.get() == loadedGeneration) {
+            if (snapshots.size() >= maxSize) {
+                makeRoom();
+            }
+            snapshots.put(username, snapshot);
+            // 检查与写入之间发生了失效（失效先递增代数再删除）：撤回刚写入的旧快照
+            if (generation.get() != loadedGeneration) {
+                snapshots.remove(username, snapshot);
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * 检查快照中是否包含权限
+     */
+    public boolean hasPermission(Snapshot snapshot, String permissionName) {
+        int index = permissionCodec.indexOf(permissionName);
+        return index >= 0 && snapshot.permissions.get(index);
+    }
+
+    /**
+     * 事务提交后失效单个用户的快照
+     */
+    public void invalidateAfterCommit(String username) {
+        generation.incrementAndGet();
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            snapshots.remove(username);
+        });
+    }
+
+    /**
+     * 事务提交后失效一批用户的快照（只注册一次事务回调）
+     */
+    public void invalidateAfterCommit(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            for (String username : usernames) {
+                snapshots.remove(username);
+            }
+        });
+    }
+
+    /**
+     * 立即失效一批用户的快照（其他节点的修改，由令牌纪元轮询调用）
+     */
+    public void invalidate(Collection<String> usernames) {
+        if (usernames.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        for (String username : usernames) {
+            snapshots.remove(username);
+        }
+    }
+
+    /**
+     * 立即失效全部快照
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        snapshots.clear();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void makeRoom() {
+        int excess = snapshots.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> it = snapshots.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public int size() {
+        return snapshots.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 用户授权快照（不可变）
+     */
+    public static final class Snapshot {
+        // 用户不存在
+        private static final Snapshot NONE = new Snapshot(Set.of(), new BitSet());
+
+        private final Set<String> roles;
+        private final BitSet permissions;
+
+        Snapshot(Set<String> roles, BitSet permissions) {
+            this.roles = roles;
+            this.permissions = permissions;
+        }
+
+        public boolean hasRole(String roleName) {
+            return roles.contains(roleName);
+        }
+
+        public Set<String> getRoles() {
+            return roles;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.startup.service;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 最后登录时间的延迟批量写入
+ * 登录时只在内存中按用户ID合并记录，定时或积累到阈值时以JDBC批量更新写入users.last_login，
+ * 应用正常关闭时写入剩余记录。
+ * 每批在一个事务中写入并递增一次资料版本（ProfileCache），各节点的资料缓存据此失效。
+ */
+@Component
+public class LastLoginWriter {
+    private static final Logger log = LoggerFactory.getLogger(LastLoginWriter.class);
+
+    private static final String UPDATE_SQL = "UPDATE users SET last_login = ?, profile_version = ? WHERE id = ?";
+
+    // 待写入条数达到该值时立即触发一次写入，同时也是单批的最大行数
+    @Value("${security.last-login.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProfileCache profileCache;
+
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ExecutorService flushExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "last-login-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * 记录一次登录（同一用户只保留最新时间）
+     */
+    public void record(long userId, LocalDateTime loginTime) {
+        pending.merge(userId, loginTime, (previous, current) -> current.isAfter(previous) ? current : previous);
+        recorded.increment();
+        if (pending.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * 定时写入
+     */
+    @Scheduled(fixedDelayString = "${security.last-login.flush-interval:1000}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            List<Object[]> rows = new ArrayList<>(Math.min(pending.size(), batchSize));
+            for (Long userId : pending.keySet()) {
+                LocalDateTime loginTime = pending.remove(userId);
+                if (loginTime != null) {
+                    rows.add(new Object[]{Timestamp.valueOf(loginTime), userId});
+                }
+                if (rows.size() >= batchSize) {
+                    write(rows);
+                    rows = new ArrayList<>(batchSize);
+                }
+            }
+            if (!rows.isEmpty()) {
+                write(rows);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flushExecutor.shutdown();
+        flush();
+    }
+
+    private void write(List<Object[]> rows) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                long version = profileCache.nextVersion();
+                List<Object[]> args = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    args.add(new Object[]{row[0], version, row[1]});
+                }
+                jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+            });
+            written.add(rows.size());
+            batches.increment();
+        } catch (RuntimeException e) {
+            // 写入失败的记录放回队列，下次重试（不覆盖更新的时间）
+            for (Object[] row : rows) {
+                LocalDateTime loginTime = ((Timestamp) row[0]).toLocalDateTime();
+                pending.merge((Long) row[1], loginTime,
+                        (current, failed) -> current.isAfter(failed) ? current : failed);
+            }
+            log.warn("最后登录时间批量写入失败，{}条记录将重试", rows.size(), e);
+        }
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    public long getRecordedCount() {
+        return recorded.sum();
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+}
@@ -0,0 +1,214 @@
+package org.example.startup.service;
+
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.example.startup.repository.CacheVersionRepository;
+import org.example.startup.repository.ProfileVersionRepository;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户资料缓存（/api/user/profile）
+ * 每个用户缓存一份不可变的资料响应体和由资料版本生成的强ETag，命中时不访问数据库。
+ * UserService修改用户启用状态或角色、LastLoginWriter写入最后登录时间时，在同一事务内递增cache_versions中的
+ * profile版本号并写入该用户的users.profile_version，提交后本节点立即失效；
+ * 其他节点轮询版本号，只失效profile_version大于上次轮询值的用户。
+ */
+@Component
+public class ProfileCache implements SmartInitializingSingleton {
+    static final String VERSION_NAME = "profile";
+
+    // 最大缓存用户数
+    @Value("${profile.cache.max-size:10000}")
+    private int maxSize;
+
+    @Autowired
+    private CacheVersionRepository cacheVersionRepository;
+    @Autowired
+    private ProfileVersionRepository profileVersionRepository;
+
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+
+    // 每次失效递增；加载期间发生失效的结果不写入缓存，避免写回旧数据
+    private final AtomicLong generation = new AtomicLong();
+
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private volatile long loadedVersion = -1;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 启动时记录当前版本号，之后只关心此后的变化
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        loadedVersion = cacheVersionRepository.getVersion(VERSION_NAME);
+    }
+
+    /**
+     * 获取缓存的资料，未命中返回null
+     */
+    public Profile get(String username) {
+        Profile profile = profiles.get(username);
+        if (profile == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return profile;
+    }
+
+    /**
+     * 开始加载前记录当前代数
+     */
+    public long currentGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 由用户实体（需已加载角色）构建资料并写入缓存
+     */
+    public Profile put(String username, User user, long loadedGeneration) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("id", user.getId());
+        body.put("username", user.getUsername());
+        body.put("email", user.getEmail());
+        body.put("enabled", user.isEnabled());
+        body.put("createdAt", user.getCreatedAt());
+        body.put("lastLogin", user.getLastLogin());
+        body.put("roles", user.getRoles().stream().map(Role::getName).sorted().toList());
+        // ETag带上用户ID：同一URL下不同用户的资料版本号可能相同
+        Profile profile = new Profile("\"" + user.getId() + "-" + user.getProfileVersion() + "\"",
+                Collections.unmodifiableMap(body));
+        if (generation.get() == loadedGeneration) {
+            if (profiles.size() >= maxSize) {
+                makeRoom();
+            }
+            profiles.put(username, profile);
+            // 检查与写入之间发生了失效（失效先递增代数再删除）：撤回刚写入的旧资料
+            if (generation.get() != loadedGeneration) {
+                profiles.remove(username, profile);
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * 取得新的资料版本号（参与当前事务）
+     */
+    public long nextVersion() {
+        return cacheVersionRepository.incrementAndGet(VERSION_NAME);
+    }
+
+    /**
+     * 在当前事务内递增一批用户的资料版本，提交后失效本节点缓存，changedUsers为用户ID到用户名
+     */
+    public void markChanged(Map<Long, String> changedUsers) {
+        if (changedUsers.isEmpty()) {
+            return;
+        }
+        profileVersionRepository.stamp(changedUsers.keySet(), nextVersion());
+        List<String> usernames = List.copyOf(changedUsers.values());
+        generation.incrementAndGet();
+        afterCommit(() -> {
+            generation.incrementAndGet();
+            usernames.forEach(profiles::remove);
+        });
+    }
+
+    /**
+     * 轮询版本号，失效其他节点修改过的用户（本节点的修改也会再失效一次，无害）
+     */
+    @Scheduled(fixedDelayString = "${profile.poll-interval:5000}")
+    public void pollVersion() {
+        pollLock.lock();
+        try {
+            // 先读版本号再查变化的用户，查询期间提交的修改在下次轮询时处理
+            long version = cacheVersionRepository.getVersion(VERSION_NAME);
+            long seen = loadedVersion;
+            if (version == seen) {
+                return;
+            }
+            generation.incrementAndGet();
+            profileVersionRepository.forEachChangedSince(seen, profiles::remove);
+            loadedVersion = version;
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void makeRoom() {
+        int excess = profiles.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> it = profiles.keySet().iterator();
+        while (excess-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 用户资料（不可变）
+     */
+    public static final class Profile {
+        private final String eTag;
+        private final Map<String, Object> body;
+
+        Profile(String eTag, Map<String, Object> body) {
+            this.eTag = eTag;
+            this.body = body;
+        }
+
+        /**
+         * 强ETag（含引号）
+         */
+        public String getETag() {
+            return eTag;
+        }
+
+        public Map<String, Object> getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.example.startup.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.startup.model.Permission;
+import org.example.startup.model.Role;
+import org.example.startup.repository.CacheVersionRepository;
+import org.example.startup.repository.PermissionRepository;
+import org.example.startup.repository.RoleRepository;
+import org.example.startup.security.PermissionCodec;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 内存RBAC图
+ * 一次性加载全部角色和权限为不可变结构，供所有角色/权限读取使用。
+ * RoleService写操作在事务内递增cache_versions中的rbac版本号；
+ * 各节点定时轮询版本号，发现变化后重建快照并原子替换。
+ */
+@Service
+public class RbacGraphService {
+    static final String VERSION_NAME = "rbac";
+
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PermissionRepository permissionRepository;
+    @Autowired
+    private CacheVersionRepository cacheVersionRepository;
+    @Autowired
+    private AuthorizationSnapshotCache authorizationCache;
+    @Autowired
+    private PermissionCodec permissionCodec;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private volatile Graph graph;
+
+    public RbacGraphService(PlatformTransactionManager transactionManager) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        // 配置了从库时从从库加载；版本号和数据在同一事务中读取，从库滞后时轮询会发现主库版本更新并再次重建
+        this.readOnlyTransaction.setReadOnly(true);
+        // 可能在其他事务的afterCommit回调中执行，必须使用新事务
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 当前快照
+     */
+    public Graph getGraph() {
+        Graph current = graph;
+        if (current == null) {
+            current = reload(null);
+        }
+        return current;
+    }
+
+    /**
+     * 多个角色的权限名并集
+     */
+    public Set<String> getPermissionNames(Collection<String> roleNames) {
+        Graph current = getGraph();
+        Set<String> names = new LinkedHashSet<>();
+        for (String roleName : roleNames) {
+            RoleNode role = current.roles.get(roleName);
+            if (role != null) {
+                names.addAll(role.permissionNames);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 在当前事务内递增RBAC版本号，提交后本节点立即重建快照
+     */
+    public void markChanged() {
+        cacheVersionRepository.increment(VERSION_NAME);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    reload(graph);
+                }
+            });
+        } else {
+            reload(graph);
+        }
+    }
+
+    /**
+     * 轮询版本号，其他节点修改后重建快照
+     */
+    @Scheduled(fixedDelayString = "${rbac.poll-interval:5000}")
+    public void pollVersion() {
+        Graph current = graph;
+        if (current != null && cacheVersionRepository.getVersion(VERSION_NAME) != current.version) {
+            reload(current);
+        }
+    }
+
+    private Graph reload(Graph seen) {
+        reloadLock.lock();
+        try {
+            Graph current = graph;
+            if (current != null && current != seen) {
+                return current;
+            }
+            if (current != null) {
+                evictSecondLevelCache();
+            }
+            Graph rebuilt = readOnlyTransaction.execute(status -> {
+                // 先读版本号再读数据，加载期间的修改会在下次轮询时再次重建
+                long version = cacheVersionRepository.getVersion(VERSION_NAME);
+                return Graph.of(version, roleRepository.findAllWithPermissions(), permissionRepository.findAll());
+            });
+            graph = rebuilt;
+            if (current != null) {
+                // 快照替换后再失效依赖它的缓存
+                authorizationCache.invalidateAll();
+                permissionCodec.invalidate();
+            }
+            return rebuilt;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * 失效角色和权限的二级缓存及查询缓存
+     * 本节点经实体写入的修改Hibernate已自行失效，但批量JDBC写入和其他节点的修改只能通过版本号发现
+     */
+    private void evictSecondLevelCache() {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cache.evictEntityData(Role.class);
+        cache.evictEntityData(Permission.class);
+        cache.evictCollectionData(Role.class.getName() + ".permissions");
+        cache.evictDefaultQueryRegion();
+    }
+
+    /**
+     * RBAC快照（不可变）
+     */
+    public static final class Graph {
+        private final long version;
+        private final Map<String, RoleNode> roles;
+        private final Map<String, PermissionNode> permissions;
+
+        private Graph(long version, Map<String, RoleNode> roles, Map<String, PermissionNode> permissions) {
+            this.version = version;
+            this.roles = roles;
+            this.permissions = permissions;
+        }
+
+        static Graph of(long version, List<Role> roles, List<Permission> permissions) {
+            Map<String, PermissionNode> permissionNodes = new LinkedHashMap<>();
+            for (Permission permission : permissions) {
+                permissionNodes.put(permission.getName(), new PermissionNode(permission));
+            }
+            Map<String, RoleNode> roleNodes = new LinkedHashMap<>();
+            for (Role role : roles) {
+                roleNodes.put(role.getName(), new RoleNode(role));
+            }
+            return new Graph(version, Map.copyOf(roleNodes), Map.copyOf(permissionNodes));
+        }
+
+        public long getVersion() {
+            return version;
+        }
+
+        public RoleNode getRole(String name) {
+            return roles.get(name);
+        }
+
+        public Collection<RoleNode> getRoles() {
+            return roles.values();
+        }
+
+        public PermissionNode getPermission(String name) {
+            return permissions.get(name);
+        }
+    }
+
+    /**
+     * 角色节点
+     */
+    public static final class RoleNode {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final Set<String> permissionNames;
+
+        RoleNode(Role role) {
+            this.id = role.getId();
+            this.name = role.getName();
+            this.description = role.getDescription();
+            this.permissionNames = role.getPermissions().stream()
+                    .map(Permission::getName)
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public Set<String> getPermissionNames() {
+            return permissionNames;
+        }
+    }
+
+    /**
+     * 权限节点
+     */
+    public static final class PermissionNode {
+        private final Long id;
+        private final String name;
+        private final String description;
+        private final String resource;
+        private final String action;
+
+        PermissionNode(Permission permission) {
+            this.id = permission.getId();
+            this.name = permission.getName();
+            this.description = permission.getDescription();
+            this.resource = permission.getResource();
+            this.action = permission.getAction();
+        }
+
+        /**
+         * 复制为游离的实体对象，调用方修改不会影响快照
+         */
+        public Permission toEntity() {
+            Permission permission = new Permission(name, description, resource, action);
+            permission.setId(id);
+            return permission;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -1,17 +1,27 @@
 package org.example.startup.service;
 
+import org.example.startup.dto.AssignmentResult;
+import org.example.startup.dto.RolePermissionAssignment;
 import org.example.startup.model.Role;
 import org.example.startup.model.Permission;
+import org.example.startup.repository.RbacAssignmentRepository;
 import org.example.startup.repository.RoleRepository;
 import org.example.startup.repository.PermissionRepository;
+import org.example.startup.repository.UserRepository;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -20,6 +30,12 @@ public class RoleService {
     private RoleRepository roleRepository;
     @Autowired
     private PermissionRepository permissionRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private RbacGraphService rbacGraph;
+    @Autowired
+    private RbacAssignmentRepository assignmentRepository;
     /**
      * 创建角色
      */
@@ -29,12 +45,14 @@ public class RoleService {
         }
         Role role = new Role(name, description);
         Role savedRole = roleRepository.save(role);
+        rbacGraph.markChanged();
         return savedRole;
     }
     
     /**
      * 根据名称查找角色
      */
+    @Transactional(readOnly = true)
     public Optional<Role> findByName(String name) {
         return roleRepository.findByName(name);
     }
@@ -42,8 +60,12 @@ public class RoleService {
     /**
      * 获取所有角色
      */
+    @Transactional(readOnly = true)
     public List<Role> getAllRoles() {
-        return roleRepository.findAll();
+        RbacGraphService.Graph graph = rbacGraph.getGraph();
+        return graph.getRoles().stream()
+                .map(node -> toRole(graph, node))
+                .collect(Collectors.toList());
     }
     
     /**
@@ -68,10 +90,75 @@ public class RoleService {
         
         role.addPermission(permission);
         roleRepository.save(role);
+        rbacGraph.markChanged();
         
 
     }
     
+    /**
+     * 批量为角色添加权限，返回与请求一一对应的结果
+     * 角色和权限名取自内存RBAC图，已有关联在事务内按角色成组查询，新关联批量插入；
+     * 只有实际新增了关联时才递增一次RBAC版本，用户角色和令牌纪元不受影响
+     */
+    public List<AssignmentResult> assignPermissions(List<RolePermissionAssignment> assignments) {
+        RbacGraphService.Graph graph = rbacGraph.getGraph();
+        Set<Long> roleIds = new HashSet<>();
+        for (RolePermissionAssignment assignment : assignments) {
+            RbacGraphService.RoleNode role = assignment != null && assignment.getRole() != null
+                    ? graph.getRole(assignment.getRole()) : null;
+            if (role != null) {
+                roleIds.add(role.getId());
+            }
+        }
+        // 以数据库为准判断是否已存在，其他节点的修改可能尚未反映到本节点的RBAC图
+        Map<Long, Set<Long>> existing = assignmentRepository.findRolePermissions(roleIds);
+        
+        List<AssignmentResult> results = new ArrayList<>(assignments.size());
+        // 每项为{roleId, permissionId, 请求序号}
+        List<long[]> inserts = new ArrayList<>();
+        for (int i = 0; i < assignments.size(); i++) {
+            RolePermissionAssignment assignment = assignments.get(i);
+            if (assignment == null || !StringUtils.hasText(assignment.getRole())
+                    || !StringUtils.hasText(assignment.getPermission())) {
+                results.add(AssignmentResult.failed(i, "角色或权限为空"));
+                continue;
+            }
+            RbacGraphService.RoleNode role = graph.getRole(assignment.getRole());
+            if (role == null) {
+                results.add(AssignmentResult.failed(i, "角色不存在: " + assignment.getRole()));
+                continue;
+            }
+            RbacGraphService.PermissionNode permission = graph.getPermission(assignment.getPermission());
+            if (permission == null) {
+                results.add(AssignmentResult.failed(i, "权限不存在: " + assignment.getPermission()));
+                continue;
+            }
+            if (existing.computeIfAbsent(role.getId(), id -> new HashSet<>()).add(permission.getId())) {
+                inserts.add(new long[]{role.getId(), permission.getId(), i});
+                results.add(AssignmentResult.created(i));
+            } else {
+                results.add(AssignmentResult.exists(i));
+            }
+        }
+        
+        inserts.sort(Comparator.<long[]>comparingLong(pair -> pair[0]).thenComparingLong(pair -> pair[1]));
+        boolean[] inserted = assignmentRepository.insertRolePermissions(inserts);
+        // 读取已有关联之后被并发请求插入的关联改报为已存在
+        boolean changed = false;
+        for (int k = 0; k < inserts.size(); k++) {
+            int index = (int) inserts.get(k)[2];
+            if (inserted[k]) {
+                changed = true;
+            } else {
+                results.set(index, AssignmentResult.exists(index));
+            }
+        }
+        if (changed) {
+            rbacGraph.markChanged();
+        }
+        return results;
+    }
+    
     /**
      * 从角色中移除权限
      */
@@ -91,6 +178,7 @@ public class RoleService {
         
         role.removePermission(permission);
         roleRepository.save(role);
+        rbacGraph.markChanged();
         
 
     }
@@ -98,12 +186,41 @@ public class RoleService {
     /**
      * 获取角色的所有权限
      */
+    @Transactional(readOnly = true)
     public Set<Permission> getRolePermissions(String roleName) {
-        Optional<Role> roleOpt = roleRepository.findByName(roleName);
-        if (roleOpt.isEmpty()) {
+        RbacGraphService.Graph graph = rbacGraph.getGraph();
+        RbacGraphService.RoleNode role = graph.getRole(roleName);
+        if (role == null) {
+            throw new RuntimeException("角色不存在: " + roleName);
+        }
+        return toRole(graph, role).getPermissions();
+    }
+    
+    /**
+     * 由RBAC快照复制出游离的角色对象
+     */
+    private Role toRole(RbacGraphService.Graph graph, RbacGraphService.RoleNode node) {
+        Role role = new Role(node.getName(), node.getDescription());
+        role.setId(node.getId());
+        for (String permissionName : node.getPermissionNames()) {
+            RbacGraphService.PermissionNode permission = graph.getPermission(permissionName);
+            if (permission != null) {
+                role.getPermissions().add(permission.toEntity());
+            }
+        }
+        return role;
+    }
+    
+    /**
+     * 统计角色成员数
+     */
+    @Transactional(readOnly = true)
+    public long countRoleMembers(String roleName) {
+        RbacGraphService.RoleNode role = rbacGraph.getGraph().getRole(roleName);
+        if (role == null) {
             throw new RuntimeException("角色不存在: " + roleName);
         }
-        return roleOpt.get().getPermissions();
+        return userRepository.countByRolesId(role.getId());
     }
     
     /**
@@ -120,13 +237,14 @@ public class RoleService {
         
         Role role = roleOpt.get();
         
-        // 检查是否有用户使用此角色
-        if (!role.getUsers().isEmpty()) {
+        // 检查是否有用户使用此角色（存在性查询，不加载成员）
+        if (userRepository.existsByRolesId(role.getId())) {
 
             throw new RuntimeException("无法删除角色，仍有用户使用此角色: " + roleName);
         }
         
         roleRepository.delete(role);
+        rbacGraph.markChanged();
 
     }
     
@@ -145,6 +263,7 @@ public class RoleService {
         role.setDescription(newDescription);
         
         Role updatedRole = roleRepository.save(role);
+        rbacGraph.markChanged();
 
         
         return updatedRole;
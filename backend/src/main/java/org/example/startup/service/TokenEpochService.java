@@ -0,0 +1,290 @@
+package org.example.startup.service;
+
+import org.example.startup.repository.CacheVersionRepository;
+import org.example.startup.repository.TokenEpochRepository;
+
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 用户令牌纪元
+ * 令牌签发时写入用户当前纪元（ep声明），纪元小于用户当前纪元的令牌视为已吊销。
+ * 禁用用户、修改用户角色时在事务内递增cache_versions中的token_epoch版本号，把用户纪元加一并把
+ * users.epoch_version设为该版本号，提交后本节点立即生效；
+ * 其他节点轮询版本号，只读取纪元版本大于上次轮询值的用户。
+ * 用户角色变化都会吊销令牌，轮询到的用户同时失效本节点的授权快照。
+ * 内存中只保存纪元非零的用户，用开放寻址的long→int表存放，每个请求只做一次数组查找，不访问数据库。
+ * 本节点的单个吊销先记入增量表，轮询时或累积到一定数量后一次性并入主表，不必每次吊销都复制整张表。
+ */
+@Service
+public class TokenEpochService implements SmartInitializingSingleton {
+    static final String VERSION_NAME = "token_epoch";
+
+    // 增量表累积到该数量时立即并入主表
+    private static final int MAX_PENDING = 256;
+
+    @Autowired
+    private TokenEpochRepository tokenEpochRepository;
+    @Autowired
+    private CacheVersionRepository cacheVersionRepository;
+    @Autowired
+    private AuthorizationSnapshotCache authorizationCache;
+
+    private final ReentrantLock updateLock = new ReentrantLock();
+    private final ReentrantLock pollLock = new ReentrantLock();
+    private volatile EpochTable table = EpochTable.EMPTY;
+    // 本节点已生效、尚未并入主表的纪元
+    private final Map<Long, Integer> pending = new ConcurrentHashMap<>();
+    private volatile long loadedVersion = -1;
+
+    /**
+     * 在Web服务器开始接收请求之前加载一次
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        loadAll();
+    }
+
+    /**
+     * 用户当前纪元，未被吊销过的用户为0
+     */
+    public int currentEpoch(long userId) {
+        int epoch = table.get(userId);
+        if (!pending.isEmpty()) {
+            Integer raised = pending.get(userId);
+            if (raised != null && raised > epoch) {
+                epoch = raised;
+            }
+        }
+        return epoch;
+    }
+
+    /**
+     * 令牌是否已被吊销
+     */
+    public boolean isRevoked(Long userId, int tokenEpoch) {
+        return userId != null && tokenEpoch < currentEpoch(userId);
+    }
+
+    /**
+     * 在当前事务内递增用户纪元，提交后本节点立即生效
+     */
+    public void revoke(long userId) {
+        long version = cacheVersionRepository.incrementAndGet(VERSION_NAME);
+        Integer epoch = tokenEpochRepository.increment(userId, version);
+        if (epoch == null) {
+            return;
+        }
+        afterCommit(() -> raise(userId, epoch));
+    }
+
+    /**
+     * 在当前事务内批量递增一批用户的纪元，只递增一次版本号，提交后一次性生效
+     */
+    public void revokeAll(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        long version = cacheVersionRepository.incrementAndGet(VERSION_NAME);
+        Map<Long, Integer> epochs = new HashMap<>();
+        tokenEpochRepository.incrementAll(userIds, version, epochs::put);
+        if (epochs.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> raiseAll(epochs));
+    }
+
+    /**
+     * 轮询版本号，只加载其他节点此后吊销的用户并失效其授权快照，并把本节点的增量并入主表
+     * （本节点的修改也会再失效一次，无害）
+     */
+    @Scheduled(fixedDelayString = "${security.token-epoch.poll-interval:5000}")
+    public void pollVersion() {
+        pollLock.lock();
+        try {
+            // 先读版本号再查变化的用户，查询期间提交的修改在下次轮询时处理
+            long version = cacheVersionRepository.getVersion(VERSION_NAME);
+            long seen = loadedVersion;
+            Map<Long, Integer> raised = new HashMap<>();
+            List<String> usernames = new ArrayList<>();
+            if (version != seen) {
+                tokenEpochRepository.forEachRaisedSince(seen, (userId, username, epoch) -> {
+                    raised.put(userId, epoch);
+                    usernames.add(username);
+                });
+            }
+            raiseAll(raised);
+            authorizationCache.invalidate(usernames);
+            loadedVersion = version;
+        } finally {
+            pollLock.unlock();
+        }
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    /**
+     * 加载全部非零纪元
+     * 纪元只增不减，因此与加载期间本节点已生效的纪元取较大值合并，不会回退
+     */
+    private void loadAll() {
+        // 先读版本号再读数据，加载期间的修改会在下次轮询时再次加载
+        long version = cacheVersionRepository.getVersion(VERSION_NAME);
+        Map<Long, Integer> epochs = new HashMap<>();
+        tokenEpochRepository.forEachRaised(epochs::put);
+        raiseAll(epochs);
+        loadedVersion = version;
+    }
+
+    private void raise(long userId, int epoch) {
+        pending.merge(userId, epoch, Math::max);
+        if (pending.size() >= MAX_PENDING) {
+            raiseAll(Map.of());
+        }
+    }
+
+    /**
+     * 把一批纪元和增量表一起并入主表，只复制一次表
+     */
+    private void raiseAll(Map<Long, Integer> epochs) {
+        updateLock.lock();
+        try {
+            Map<Long, Integer> folded = new HashMap<>(pending);
+            if (epochs.isEmpty() && folded.isEmpty()) {
+                return;
+            }
+            EpochTable current = table;
+            EpochTable.Builder builder = new EpochTable.Builder(current.size + epochs.size() + folded.size());
+            for (int i = 0; i < current.keys.length; i++) {
+                if (current.keys[i] != 0) {
+                    builder.put(current.keys[i], current.values[i]);
+                }
+            }
+            epochs.forEach(builder::put);
+            folded.forEach(builder::put);
+            table = builder.build();
+            // 先发布新表再移出增量，期间又被提高的纪元留在增量表中
+            folded.forEach(pending::remove);
+        } finally {
+            updateLock.unlock();
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * 不可变的long→int开放寻址表（线性探测），0作为空槽标记（用户ID从1开始）
+     */
+    static final class EpochTable {
+        static final EpochTable EMPTY = new EpochTable(new long[8], new int[8], 0);
+
+        private final long[] keys;
+        private final int[] values;
+        private final int mask;
+        private final int size;
+
+        private EpochTable(long[] keys, int[] values, int size) {
+            this.keys = keys;
+            this.values = values;
+            this.mask = keys.length - 1;
+            this.size = size;
+        }
+
+        int get(long key) {
+            long[] k = keys;
+            for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                long candidate = k[i];
+                if (candidate == key) {
+                    return values[i];
+                }
+                if (candidate == 0) {
+                    return 0;
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32)) & mask;
+        }
+
+        /**
+         * 构建器，同一键取较大值，负载因子不超过0.5
+         */
+        static final class Builder {
+            private long[] keys;
+            private int[] values;
+            private int size;
+
+            Builder(int expected) {
+                int capacity = Integer.highestOneBit(Math.max(4, expected) * 2 - 1) << 1;
+                keys = new long[capacity];
+                values = new int[capacity];
+            }
+
+            void put(long key, int value) {
+                if (key == 0) {
+                    return;
+                }
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                }
+                int mask = keys.length - 1;
+                for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+                    if (keys[i] == key) {
+                        values[i] = Math.max(values[i], value);
+                        return;
+                    }
+                    if (keys[i] == 0) {
+                        keys[i] = key;
+                        values[i] = value;
+                        size++;
+                        return;
+                    }
+                }
+            }
+
+            private void grow() {
+                long[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new long[oldKeys.length * 2];
+                values = new int[oldValues.length * 2];
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != 0) {
+                        put(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+
+            EpochTable build() {
+                return new EpochTable(keys, values, size);
+            }
+        }
+    }
+}
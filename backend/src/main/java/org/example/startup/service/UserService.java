@@ -1,18 +1,38 @@
 package org.example.startup.service;
 
+import org.example.startup.dto.AssignmentResult;
+import org.example.startup.dto.UserPage;
+import org.example.startup.dto.UserRoleAssignment;
+import org.example.startup.dto.UserSummary;
 import org.example.startup.model.User;
 import org.example.startup.model.Role;
+import org.example.startup.repository.RbacAssignmentRepository;
+import org.example.startup.repository.UserListingRepository;
 import org.example.startup.repository.UserRepository;
-import org.example.startup.repository.RoleRepository;
+import org.example.startup.security.AuthMetrics;
+import org.example.startup.security.PasswordHashingRejectedException;
+import org.example.startup.security.PasswordHashingService;
+import org.example.startup.security.UsernameFilter;
 import org.example.startup.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -22,116 +42,283 @@ public class UserService {
     private UserRepository userRepository;
     
     @Autowired
-    private RoleRepository roleRepository;
+    private JwtUtil jwtUtil;
     
     @Autowired
-    private JwtUtil jwtUtil;
+    private AuthorizationSnapshotCache authorizationCache;
+    
+    @Autowired
+    private RbacGraphService rbacGraph;
+    
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private LastLoginWriter lastLoginWriter;
+    
+    @Autowired
+    private AuthMetrics authMetrics;
+    
+    @Autowired
+    private TokenEpochService tokenEpochs;
+    
+    @Autowired
+    private RbacAssignmentRepository assignmentRepository;
+    
+    @Autowired
+    private UserListingRepository listingRepository;
+    
+    @Autowired
+    private ProfileCache profileCache;
     
-    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    @Autowired
+    private UsernameFilter usernameFilter;
     
+    /**
+     * 登录
+     * 不在事务中执行，等待密码哈希期间不占用数据库连接
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public User login(String username, String password) {
+        long start = System.nanoTime();
         try {
-            User user = userRepository.findByUsername(username);
+            // 用户名过滤器判断一定不存在时不查库
+            boolean mayExist = usernameFilter.mightContain(username);
+            User user = mayExist ? findUserInShortTransaction(username) : null;
+            long stageStart = authMetrics.recordStage(AuthMetrics.Stage.USER_LOOKUP, start);
             if (user == null) {
+                if (mayExist) {
+                    usernameFilter.recordFalsePositive();
+                }
+                authMetrics.recordLogin(AuthMetrics.LoginOutcome.UNKNOWN_USER, start);
                 return null;
             }
             if (!user.isEnabled()) {
+                authMetrics.recordLogin(AuthMetrics.LoginOutcome.DISABLED_USER, start);
                 return null;
             }
             
-            if (passwordEncoder.matches(password, user.getPassword())) {
-                // 更新最后登录时间
-                user.setLastLogin(LocalDateTime.now());
-                userRepository.save(user);
+            boolean matches = passwordHashingService.matches(password, user.getPassword());
+            authMetrics.recordStage(AuthMetrics.Stage.PASSWORD_CHECK, stageStart);
+            if (matches) {
+                // 存储的哈希强度低于当前目标时重新哈希
+                rehashIfNeeded(user, password);
+                
+                // 更新最后登录时间（延迟批量写入，不在登录路径上写库）
+                stageStart = System.nanoTime();
+                lastLoginWriter.record(user.getId(), LocalDateTime.now());
+                authMetrics.recordStage(AuthMetrics.Stage.LAST_LOGIN_WRITE, stageStart);
                 
-                // 调试：检查用户角色信息
+                authMetrics.recordLogin(AuthMetrics.LoginOutcome.SUCCESS, start);
                 return user;
             } else {
+                authMetrics.recordLogin(AuthMetrics.LoginOutcome.BAD_PASSWORD, start);
                 return null;
             }
+        } catch (PasswordHashingRejectedException e) {
+            authMetrics.recordLogin(AuthMetrics.LoginOutcome.BUSY, start);
+            throw e;
         } catch (Exception e) {
-
+            authMetrics.recordLogin(AuthMetrics.LoginOutcome.ERROR, start);
             throw e;
         }
     }
     
+    /**
+     * 注册
+     * 密码哈希在事务之外完成，只有写入部分在事务中执行
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean register(User user) {
         try {
-            // 检查用户名是否已存在
-            if (userRepository.findByUsername(user.getUsername()) != null) {
-                return false;
+            // 检查用户名是否已存在（只查存在性，不加载用户和角色）；用户名过滤器判断一定不存在时不查库
+            if (usernameFilter.mightContain(user.getUsername())) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(
+                        status -> userRepository.existsByUsername(user.getUsername())))) {
+                    return false;
+                }
+                usernameFilter.recordFalsePositive();
             }
             // 密码加密
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
-            // 为新用户分配默认角色
-            Optional<Role> defaultRole = roleRepository.findByName("USER");
-            if (defaultRole.isPresent()) {
-                user.addRole(defaultRole.get());
-            } 
-            // 保存用户
-            userRepository.save(user);
+            user.setPassword(passwordHashingService.encode(user.getPassword()));
+            // 角色只能由服务端分配，忽略请求体中的roles
+            user.setRoles(new HashSet<>());
+            transactionTemplate.executeWithoutResult(status -> {
+                // 保存用户
+                userRepository.save(user);
+                // 为新用户分配默认角色（直接写user_roles）
+                RbacGraphService.RoleNode defaultRole = rbacGraph.getGraph().getRole("USER");
+                if (defaultRole != null) {
+                    userRepository.insertUserRole(user.getId(), defaultRole.getId());
+                }
+                authorizationCache.invalidateAfterCommit(user.getUsername());
+                usernameFilter.addAfterCommit(user.getUsername());
+            });
             return true;
+        } catch (DataIntegrityViolationException e) {
+            // 用户名唯一约束冲突：并发注册了同名用户，或其他节点刚注册、过滤器尚未追赶到
+            return false;
         } catch (Exception e) {
             throw e;
         }
     }
+    /**
+     * 在独立的短事务中查询用户，查询结束即归还连接
+     * 在NOT_SUPPORTED范围内直接调用仓库时，共享EntityManager会一直持有连接到方法结束，
+     * 并发的登录/注册在等待密码哈希或开启写事务时会耗尽连接池
+     * 角色随用户一次查出，生成令牌和登录响应在事务外读取角色
+     */
+    private User findUserInShortTransaction(String username) {
+        return transactionTemplate.execute(status -> userRepository.findWithRolesByUsername(username));
+    }
+    
+    /**
+     * 登录成功后按当前强度重新哈希密码，哈希线程池繁忙时跳过，下次登录再处理
+     */
+    private void rehashIfNeeded(User user, String password) {
+        if (!passwordHashingService.needsRehash(user.getPassword())) {
+            return;
+        }
+        try {
+            String rehashed = passwordHashingService.encode(password);
+            userRepository.updatePassword(user.getId(), rehashed);
+            user.setPassword(rehashed);
+        } catch (PasswordHashingRejectedException e) {
+            // 忽略，不影响本次登录
+        }
+    }
+    
     /**
      * 生成JWT令牌
      */
     public String generateToken(User user) {
-        return jwtUtil.generateToken(user);
+        // 权限取自内存RBAC图，不再遍历实体关联
+        long start = System.nanoTime();
+        // 本节点已生效的纪元可能比加载用户时读到的更新
+        user.setTokenEpoch(Math.max(user.getTokenEpoch(), tokenEpochs.currentEpoch(user.getId())));
+        List<String> roles = user.getRoles().stream().map(Role::getName).collect(Collectors.toList());
+        String token = jwtUtil.generateToken(user, roles, rbacGraph.getPermissionNames(roles));
+        authMetrics.recordStage(AuthMetrics.Stage.TOKEN_GENERATION, start);
+        return token;
     }
     
     /**
      * 为用户添加角色
      */
     public void addRoleToUser(String username, String roleName) {
-
-        
-        User user = userRepository.findByUsername(username);
-        if (user == null) {
+        Long userId = userRepository.findIdByUsername(username);
+        if (userId == null) {
             throw new RuntimeException("用户不存在: " + username);
         }
         
-        Optional<Role> roleOpt = roleRepository.findByName(roleName);
-        if (roleOpt.isEmpty()) {
+        RbacGraphService.RoleNode role = rbacGraph.getGraph().getRole(roleName);
+        if (role == null) {
             throw new RuntimeException("角色不存在: " + roleName);
         }
         
-        user.addRole(roleOpt.get());
-        userRepository.save(user);
+        if (userRepository.countUserRole(userId, role.getId()) == 0) {
+            userRepository.insertUserRole(userId, role.getId());
+            // 角色变化后吊销已签发的令牌，令牌中的角色声明已过期
+            tokenEpochs.revoke(userId);
+            profileCache.markChanged(Map.of(userId, username));
+        }
+        authorizationCache.invalidateAfterCommit(username);
+    }
+    
+    /**
+     * 批量为用户添加角色，返回与请求一一对应的结果
+     * 用户名一次成组查询，角色取自内存RBAC图，新关联在同一事务内批量插入；
+     * 只吊销实际新增了角色的用户的令牌并失效其授权快照，RBAC图和其他用户不受影响
+     */
+    public List<AssignmentResult> assignRoles(List<UserRoleAssignment> assignments) {
+        RbacGraphService.Graph graph = rbacGraph.getGraph();
+        Set<String> usernames = new HashSet<>();
+        for (UserRoleAssignment assignment : assignments) {
+            if (assignment != null && StringUtils.hasText(assignment.getUsername())) {
+                usernames.add(assignment.getUsername());
+            }
+        }
+        Map<String, Long> userIds = assignmentRepository.findUserIds(usernames);
+        Map<Long, Set<Long>> existing = assignmentRepository.findUserRoles(userIds.values());
         
-
+        List<AssignmentResult> results = new ArrayList<>(assignments.size());
+        // 每项为{userId, roleId, 请求序号}
+        List<long[]> inserts = new ArrayList<>();
+        for (int i = 0; i < assignments.size(); i++) {
+            UserRoleAssignment assignment = assignments.get(i);
+            if (assignment == null || !StringUtils.hasText(assignment.getUsername())
+                    || !StringUtils.hasText(assignment.getRole())) {
+                results.add(AssignmentResult.failed(i, "用户名或角色为空"));
+                continue;
+            }
+            Long userId = userIds.get(assignment.getUsername());
+            if (userId == null) {
+                results.add(AssignmentResult.failed(i, "用户不存在: " + assignment.getUsername()));
+                continue;
+            }
+            RbacGraphService.RoleNode role = graph.getRole(assignment.getRole());
+            if (role == null) {
+                results.add(AssignmentResult.failed(i, "角色不存在: " + assignment.getRole()));
+                continue;
+            }
+            // 已有关联和同一请求中的重复项都只算一次
+            if (existing.computeIfAbsent(userId, id -> new HashSet<>()).add(role.getId())) {
+                inserts.add(new long[]{userId, role.getId(), i});
+                results.add(AssignmentResult.created(i));
+            } else {
+                results.add(AssignmentResult.exists(i));
+            }
+        }
+        
+        // 按主键顺序插入，并发的批量请求以相同顺序加锁，避免互相死锁
+        inserts.sort(Comparator.<long[]>comparingLong(pair -> pair[0]).thenComparingLong(pair -> pair[1]));
+        boolean[] inserted = assignmentRepository.insertUserRoles(inserts);
+        // 读取已有关联之后被并发请求插入的关联改报为已存在，该用户不算变化
+        Map<Long, String> changedUsers = new HashMap<>();
+        for (int k = 0; k < inserts.size(); k++) {
+            int index = (int) inserts.get(k)[2];
+            if (inserted[k]) {
+                changedUsers.put(inserts.get(k)[0], assignments.get(index).getUsername());
+            } else {
+                results.set(index, AssignmentResult.exists(index));
+            }
+        }
+        tokenEpochs.revokeAll(changedUsers.keySet());
+        authorizationCache.invalidateAfterCommit(changedUsers.values());
+        profileCache.markChanged(changedUsers);
+        return results;
     }
     
     /**
      * 从用户中移除角色
      */
     public void removeRoleFromUser(String username, String roleName) {
-
-        
-        User user = userRepository.findByUsername(username);
-        if (user == null) {
+        Long userId = userRepository.findIdByUsername(username);
+        if (userId == null) {
             throw new RuntimeException("用户不存在: " + username);
         }
         
-        Optional<Role> roleOpt = roleRepository.findByName(roleName);
-        if (roleOpt.isEmpty()) {
-
+        RbacGraphService.RoleNode role = rbacGraph.getGraph().getRole(roleName);
+        if (role == null) {
             return;
         }
         
-        user.removeRole(roleOpt.get());
-        userRepository.save(user);
-        
-
+        if (userRepository.deleteUserRole(userId, role.getId()) > 0) {
+            tokenEpochs.revoke(userId);
+            profileCache.markChanged(Map.of(userId, username));
+        }
+        authorizationCache.invalidateAfterCommit(username);
     }
     
     /**
      * 获取用户的所有角色
      */
+    @Transactional(readOnly = true)
     public Set<Role> getUserRoles(String username) {
-        User user = userRepository.findByUsername(username);
+        User user = userRepository.findWithRolesByUsername(username);
         if (user == null) {
             throw new RuntimeException("用户不存在: " + username);
         }
@@ -151,36 +338,139 @@ public class UserService {
         
         user.setEnabled(enabled);
         userRepository.save(user);
+        if (!enabled) {
+            // 禁用后立即吊销该用户已签发的全部令牌
+            tokenEpochs.revoke(user.getId());
+        }
+        authorizationCache.invalidateAfterCommit(username);
+        profileCache.markChanged(Map.of(user.getId(), username));
         
 
     }
     
     /**
-     * 根据用户名查找用户
+     * 根据用户名查找用户（连同角色，供事务外读取；角色的权限未加载，需从RBAC图获取）
      */
+    @Transactional(readOnly = true)
     public User findByUsername(String username) {
-        return userRepository.findByUsername(username);
+        return userRepository.findWithRolesByUsername(username);
     }
     
     /**
-     * 检查用户是否有特定权限
+     * 获取用户资料（含ETag），用户不存在返回null
+     * 命中资料缓存时不访问数据库，也不开启事务；未命中时在短事务中从主库加载用户和角色
      */
-    public boolean hasPermission(String username, String permissionName) {
-        User user = userRepository.findByUsername(username);
-        if (user == null) {
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ProfileCache.Profile getProfile(String username) {
+        ProfileCache.Profile profile = profileCache.get(username);
+        if (profile == null) {
+            long generation = profileCache.currentGeneration();
+            User user = findUserInShortTransaction(username);
+            profile = user != null ? profileCache.put(username, user, generation) : null;
+        }
+        return profile;
+    }
+    
+    /**
+     * 分页列出用户（键集分页），cursor为上一页返回的nextCursor，第一页传null
+     * 指定用户名前缀时按用户名排序，否则按ID排序；游标只在相同的过滤条件下有效。
+     * 每页多取一行判断是否还有下一页，角色按本页用户ID一次查询并由RBAC图转为名称
+     */
+    @Transactional(readOnly = true)
+    public UserPage listUsers(String cursor, int size, Boolean enabled, String roleName, String usernamePrefix) {
+        Long roleId = null;
+        if (StringUtils.hasText(roleName)) {
+            RbacGraphService.RoleNode role = rbacGraph.getGraph().getRole(roleName);
+            if (role == null) {
+                throw new IllegalArgumentException("角色不存在: " + roleName);
+            }
+            roleId = role.getId();
+        }
+        boolean byUsername = StringUtils.hasText(usernamePrefix);
+        String after = decodeCursor(cursor, byUsername);
+        List<UserSummary> rows = byUsername
+                ? listingRepository.findPageByUsername(usernamePrefix, after, enabled, roleId, size + 1)
+                : listingRepository.findPageById(after != null ? Long.parseLong(after) : 0L, enabled, roleId, size + 1);
+        
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            UserSummary last = rows.get(size - 1);
+            nextCursor = encodeCursor(byUsername, byUsername ? last.getUsername() : String.valueOf(last.getId()));
+        }
+        
+        Map<Long, String> roleNames = new HashMap<>();
+        for (RbacGraphService.RoleNode role : rbacGraph.getGraph().getRoles()) {
+            roleNames.put(role.getId(), role.getName());
+        }
+        Map<Long, UserSummary> byId = new HashMap<>();
+        for (UserSummary row : rows) {
+            byId.put(row.getId(), row);
+        }
+        assignmentRepository.findUserRoles(byId.keySet()).forEach((userId, roleIds) -> byId.get(userId).setRoles(
+                roleIds.stream().map(roleNames::get).filter(name -> name != null).sorted().collect(Collectors.toList())));
+        return new UserPage(rows, nextCursor);
+    }
+    
+    // 游标为排序键加类型前缀后的Base64URL编码，i表示按ID、u表示按用户名
+    private static String encodeCursor(boolean byUsername, String key) {
+        String value = (byUsername ? "u" : "i") + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private static String decodeCursor(String cursor, boolean byUsername) {
+        if (!StringUtils.hasText(cursor)) {
+            return null;
+        }
+        String value;
+        try {
+            value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+        if (!value.startsWith(byUsername ? "u" : "i")) {
+            throw new IllegalArgumentException("分页游标与查询条件不匹配");
+        }
+        String key = value.substring(1);
+        if (key.isEmpty() || (!byUsername && !isId(key))) {
+            throw new IllegalArgumentException("分页游标无效");
+        }
+        return key;
+    }
+    
+    private static boolean isId(String key) {
+        try {
+            return Long.parseLong(key) >= 0;
+        } catch (NumberFormatException e) {
             return false;
         }
-        return user.hasPermission(permissionName);
+    }
+    
+    /**
+     * 检查用户是否有特定权限
+     */
+    public boolean hasPermission(String username, String permissionName) {
+        AuthorizationSnapshotCache.Snapshot snapshot = getAuthorizationSnapshot(username);
+        return authorizationCache.hasPermission(snapshot, permissionName);
     }
     
     /**
      * 检查用户是否有特定角色
      */
     public boolean hasRole(String username, String roleName) {
-        User user = userRepository.findByUsername(username);
-        if (user == null) {
-            return false;
+        return getAuthorizationSnapshot(username).hasRole(roleName);
+    }
+    
+    /**
+     * 获取用户授权快照，未命中时从数据库加载一次
+     * 加载结果会一直缓存到下次失效，因此在读写事务中从主库读取，不读可能滞后的从库
+     */
+    private AuthorizationSnapshotCache.Snapshot getAuthorizationSnapshot(String username) {
+        AuthorizationSnapshotCache.Snapshot snapshot = authorizationCache.get(username);
+        if (snapshot == null) {
+            long generation = authorizationCache.currentGeneration();
+            snapshot = authorizationCache.put(username, userRepository.findWithRolesByUsername(username), generation);
         }
-        return user.hasRole(roleName);
+        return snapshot;
     }
 }
\ No newline at end of file
@@ -2,14 +2,19 @@ package org.example.startup.util;
 
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.example.startup.model.User;
+import org.example.startup.security.PermissionCodec;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -23,33 +28,68 @@ public class JwtUtil {
     @Value("${jwt.expiration:86400000}")
     private long jwtExpiration;
     
+    // 是否以权限位图（pv/pb声明）代替逗号分隔的权限名
+    @Value("${jwt.permissions.compact:false}")
+    private boolean compactPermissions;
+    
+    @Autowired
+    private PermissionCodec permissionCodec;
+    
+    // 签名密钥和解析器在启动时构建一次，二者均为线程安全
+    private SecretKey signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        return signingKey;
     }
     
     /**
      * 生成JWT令牌
      */
     public String generateToken(User user) {
+        List<String> roles = user.getRoles().stream()
+                .map(role -> role.getName())
+                .collect(Collectors.toList());
+        List<String> permissions = user.getRoles().stream()
+                .flatMap(role -> role.getPermissions().stream())
+                .map(permission -> permission.getName())
+                .distinct()
+                .collect(Collectors.toList());
+        return generateToken(user, roles, permissions);
+    }
+    
+    /**
+     * 生成JWT令牌（角色和权限由调用方提供）
+     */
+    public String generateToken(User user, Collection<String> roles, Collection<String> permissions) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("userId", user.getId());
         claims.put("username", user.getUsername());
         claims.put("email", user.getEmail());
         claims.put("enabled", user.isEnabled());
+        // 令牌纪元，小于用户当前纪元的令牌视为已吊销
+        claims.put("ep", user.getTokenEpoch());
         
         // 添加角色信息
-        String roles = user.getRoles().stream()
-                .map(role -> role.getName())
-                .collect(Collectors.joining(","));
-        claims.put("roles", roles);
+        claims.put("roles", String.join(",", roles));
         
         // 添加权限信息
-        String permissions = user.getRoles().stream()
-                .flatMap(role -> role.getPermissions().stream())
-                .map(permission -> permission.getName())
-                .distinct()
-                .collect(Collectors.joining(","));
-        claims.put("permissions", permissions);
+        if (compactPermissions) {
+            // 版本号和位图取自同一次编码，期间权限表重新加载也不会错配
+            PermissionCodec.Encoded encoded = permissionCodec.encode(permissions);
+            claims.put("pv", encoded.getVersion());
+            claims.put("pb", encoded.getBits());
+        } else {
+            claims.put("permissions", String.join(",", permissions));
+        }
         
         return createToken(claims, user.getUsername());
     }
@@ -70,6 +110,27 @@ public class JwtUtil {
                 .compact();
     }
     
+    /**
+     * 解析并校验令牌（只验签一次）
+     * 过期、格式错误等情况以状态码返回，不抛出异常
+     */
+    public VerifiedToken verifyToken(String token) {
+        if (token == null || token.isEmpty()) {
+            return VerifiedToken.failed(TokenStatus.EMPTY);
+        }
+        try {
+            return VerifiedToken.valid(jwtParser.parseClaimsJws(token).getBody());
+        } catch (ExpiredJwtException e) {
+            return VerifiedToken.failed(TokenStatus.EXPIRED);
+        } catch (UnsupportedJwtException e) {
+            return VerifiedToken.failed(TokenStatus.UNSUPPORTED);
+        } catch (io.jsonwebtoken.security.SecurityException e) {
+            return VerifiedToken.failed(TokenStatus.BAD_SIGNATURE);
+        } catch (JwtException | IllegalArgumentException e) {
+            return VerifiedToken.failed(TokenStatus.MALFORMED);
+        }
+    }
+
     /**
      * 从令牌中获取用户名
      */
@@ -121,11 +182,7 @@ public class JwtUtil {
      */
     private Claims getAllClaimsFromToken(String token) {
         try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (ExpiredJwtException e) {
 
             throw e;
@@ -0,0 +1,23 @@
+package org.example.startup.util;
+
+/**
+ * JWT令牌校验结果
+ */
+public enum TokenStatus {
+    // 令牌有效
+    VALID,
+    // 令牌为空
+    EMPTY,
+    // 令牌已过期
+    EXPIRED,
+    // 令牌格式错误
+    MALFORMED,
+    // 签名校验失败
+    BAD_SIGNATURE,
+    // 不支持的令牌类型（例如未签名的令牌）
+    UNSUPPORTED;
+
+    public boolean isValid() {
+        return this == VALID;
+    }
+}
@@ -0,0 +1,118 @@
+package org.example.startup.util;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.Date;
+
+/**
+ * 已校验令牌的不可变声明视图
+ * 令牌只解析、验签一次，过滤器从这里读取全部所需信息
+ */
+public final class VerifiedToken {
+    // 失败结果不携带声明，按状态共享实例
+    private static final VerifiedToken[] FAILED = new VerifiedToken[TokenStatus.values().length];
+
+    static {
+        for (TokenStatus status : TokenStatus.values()) {
+            FAILED[status.ordinal()] = new VerifiedToken(status, null, null, null, null, null, null, 0, 0L);
+        }
+    }
+
+    private final TokenStatus status;
+    private final String username;
+    private final Long userId;
+    private final String roles;
+    private final String permissions;
+    private final Integer permissionVersion;
+    private final String permissionBits;
+    private final int tokenEpoch;
+    private final long expiresAtMillis;
+
+    private VerifiedToken(TokenStatus status, String username, Long userId, String roles, String permissions,
+                          Integer permissionVersion, String permissionBits, int tokenEpoch, long expiresAtMillis) {
+        this.status = status;
+        this.username = username;
+        this.userId = userId;
+        this.roles = roles;
+        this.permissions = permissions;
+        this.permissionVersion = permissionVersion;
+        this.permissionBits = permissionBits;
+        this.tokenEpoch = tokenEpoch;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    static VerifiedToken valid(Claims claims) {
+        Date expiration = claims.getExpiration();
+        Integer epoch = claims.get("ep", Integer.class);
+        return new VerifiedToken(
+                TokenStatus.VALID,
+                claims.getSubject(),
+                claims.get("userId", Long.class),
+                claims.get("roles", String.class),
+                claims.get("permissions", String.class),
+                claims.get("pv", Integer.class),
+                claims.get("pb", String.class),
+                epoch != null ? epoch : 0,
+                expiration != null ? expiration.getTime() : Long.MAX_VALUE);
+    }
+
+    static VerifiedToken failed(TokenStatus status) {
+        return FAILED[status.ordinal()];
+    }
+
+    public TokenStatus getStatus() {
+        return status;
+    }
+
+    public boolean isValid() {
+        return status.isValid();
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRoles() {
+        return roles;
+    }
+
+    public String getPermissions() {
+        return permissions;
+    }
+
+    /**
+     * 权限表版本号，旧格式令牌为null
+     */
+    public Integer getPermissionVersion() {
+        return permissionVersion;
+    }
+
+    /**
+     * 权限位图（Base64URL），旧格式令牌为null
+     */
+    public String getPermissionBits() {
+        return permissionBits;
+    }
+
+    /**
+     * 是否为紧凑权限格式的令牌
+     */
+    public boolean hasCompactPermissions() {
+        return permissionBits != null;
+    }
+
+    /**
+     * 令牌纪元，旧令牌没有该声明时为0
+     */
+    public int getTokenEpoch() {
+        return tokenEpoch;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+}
@@ -7,7 +7,13 @@ CREATE TABLE IF NOT EXISTS users (
     enabled BOOLEAN DEFAULT TRUE,
     created_at TIMESTAMP,
     last_login TIMESTAMP,
-    INDEX idx_username (username)
+    token_epoch INT NOT NULL DEFAULT 0,
+    profile_version BIGINT NOT NULL DEFAULT 0,
+    epoch_version BIGINT NOT NULL DEFAULT 0,
+    INDEX idx_username (username),
+    INDEX idx_token_epoch (token_epoch),
+    INDEX idx_profile_version (profile_version),
+    INDEX idx_epoch_version (epoch_version)
 );
 
 -- 创建角色表
@@ -15,7 +21,7 @@ CREATE TABLE IF NOT EXISTS roles (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
     name VARCHAR(255) NOT NULL UNIQUE,
     description VARCHAR(255),
-    INDEX idx_name (name)
+    INDEX idx_role_name (name)
 );
 
 -- 创建权限表
@@ -25,7 +31,7 @@ CREATE TABLE IF NOT EXISTS permissions (
     description VARCHAR(255),
     resource VARCHAR(255),
     action VARCHAR(255),
-    INDEX idx_name (name),
+    INDEX idx_permission_name (name),
     INDEX idx_resource_action (resource, action)
 );
 
@@ -47,6 +53,12 @@ CREATE TABLE IF NOT EXISTS role_permissions (
     FOREIGN KEY (permission_id) REFERENCES permissions(id) ON DELETE CASCADE
 );
 
+-- 创建缓存版本表（各节点轮询版本号判断内存快照是否需要重建）
+CREATE TABLE IF NOT EXISTS cache_versions (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    version BIGINT NOT NULL DEFAULT 0
+);
+
 -- 插入默认角色
 INSERT INTO roles (name, description) VALUES 
 ('ADMIN', '管理员角色，拥有所有权限'),
@@ -105,4 +117,11 @@ INSERT INTO user_roles (user_id, role_id)
 SELECT u.id, r.id 
 FROM users u, roles r 
 WHERE u.username = 'admin' AND r.name = 'ADMIN'
-ON DUPLICATE KEY UPDATE user_id = VALUES(user_id);
\ No newline at end of file
+ON DUPLICATE KEY UPDATE user_id = VALUES(user_id);
+
+-- 初始化RBAC缓存版本、令牌纪元版本和用户资料版本
+INSERT INTO cache_versions (name, version) VALUES
+('rbac', 0),
+('token_epoch', 0),
+('profile', 0)
+ON DUPLICATE KEY UPDATE name = VALUES(name);
\ No newline at end of file
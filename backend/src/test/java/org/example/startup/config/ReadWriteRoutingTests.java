@@ -0,0 +1,146 @@
+package org.example.startup.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.startup.model.User;
+import org.example.startup.service.RoleService;
+import org.example.startup.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 读写分离：两个H2内存库分别充当主库和从库（之间没有复制，便于区分读到的是哪个库）
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;" + ReadWriteRoutingTests.H2_MODE,
+        "spring.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;" + ReadWriteRoutingTests.H2_MODE
+                + ";INIT=RUNSCRIPT FROM 'classpath:data.sql'",
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.maximum-pool-size=2",
+        "datasource.routing.read-your-writes-window=60000"
+})
+@ActiveProfiles("test")
+class ReadWriteRoutingTests {
+    static final String H2_MODE = "MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // 绕过应用直接写从库，模拟已复制过来的数据
+    private final JdbcTemplate replica = new JdbcTemplate(
+            new DriverManagerDataSource("jdbc:h2:mem:routing-replica;" + H2_MODE, "sa", ""));
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void readOnlyMethodsReadFromReplica() {
+        replica.update("INSERT INTO users (username, password) VALUES ('replica-only', 'x')");
+        replica.update("INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u, roles r "
+                + "WHERE u.username = 'replica-only' AND r.name = 'MERCHANT'");
+
+        assertNotNull(userService.findByUsername("replica-only"));
+        assertEquals(1, roleService.countRoleMembers("MERCHANT"));
+        // 事务外的JdbcTemplate走主库
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE username = 'replica-only'", Integer.class));
+    }
+
+    @Test
+    void sessionReadsItsOwnWritesFromPrimary() {
+        requestFrom("10.0.0.1");
+        assertTrue(userService.register(new User("fresh-writer", "password")));
+        assertNotNull(userService.findByUsername("fresh-writer"));
+
+        // 其他会话仍读从库，从库还没有这条数据
+        requestFrom("10.0.0.2");
+        assertNull(userService.findByUsername("fresh-writer"));
+    }
+
+    @Test
+    void usersBehindOneAddressArePinnedSeparately() {
+        requestFrom("10.0.0.3");
+        authenticateAs("admin");
+        assertTrue(userService.register(new User("shared-address-writer", "password")));
+        assertNotNull(userService.findByUsername("shared-address-writer"));
+
+        // 同一出口地址后的另一个用户不受影响，仍读从库
+        authenticateAs("shared-address-reader");
+        assertNull(userService.findByUsername("shared-address-writer"));
+    }
+
+    @Test
+    void skipsPinningWhenFullOfActiveSessions() {
+        ReplicaRoutingPolicy policy = new ReplicaRoutingPolicy();
+        ReflectionTestUtils.setField(policy, "windowMillis", 60_000L);
+        ReflectionTestUtils.setField(policy, "maxSessions", 1);
+
+        requestFrom("10.0.0.4");
+        commitWrite(policy);
+        requestFrom("10.0.0.5");
+        commitWrite(policy);
+
+        // 已满且没有过期记录：不为新会话腾出空间，已有会话保持固定
+        assertEquals(1, policy.getPinnedSessionCount());
+        assertEquals(ReadWriteRoutingDataSource.Route.REPLICA, policy.routeRead());
+        requestFrom("10.0.0.4");
+        assertEquals(ReadWriteRoutingDataSource.Route.PRIMARY, policy.routeRead());
+    }
+
+    @Test
+    void exposesPerPoolAndRoutingMetrics() {
+        userService.findByUsername("admin");
+
+        assertNotNull(meterRegistry.find("hikaricp.connections.max").tag("pool", "primary").gauge());
+        assertEquals(2, meterRegistry.get("hikaricp.connections.max").tag("pool", "replica").gauge().value());
+        assertTrue(meterRegistry.get("datasource.routing.reads").tag("route", "replica")
+                .functionCounter().count() > 0);
+    }
+
+    private static void requestFrom(String address) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setRemoteAddr(address);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+    }
+
+    private static void authenticateAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+    }
+
+    // 模拟读写事务提交
+    private static void commitWrite(ReplicaRoutingPolicy policy) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            policy.trackWrite();
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.startup.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.sql.init.DatabaseInitializationMode;
+import org.springframework.boot.sql.init.DatabaseInitializationSettings;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeedScriptInitializerTests {
+
+    @TempDir
+    Path dir;
+
+    private final DriverManagerDataSource dataSource =
+            new DriverManagerDataSource("jdbc:h2:mem:seed-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1", "sa", "");
+
+    private SeedScriptInitializer initializer(Path script, boolean skipUnchanged) {
+        DatabaseInitializationSettings settings = new DatabaseInitializationSettings();
+        settings.setMode(DatabaseInitializationMode.ALWAYS);
+        settings.setDataLocations(List.of("file:" + script));
+        return new SeedScriptInitializer(dataSource, settings, skipUnchanged);
+    }
+
+    @Test
+    void skipsScriptsWhoseChecksumIsUnchanged() throws Exception {
+        Path script = dir.resolve("seed.sql");
+        // 故意不幂等：每执行一次多一行
+        Files.writeString(script, "CREATE TABLE IF NOT EXISTS runs (id INT AUTO_INCREMENT PRIMARY KEY);\n"
+                + "INSERT INTO runs () VALUES ();\n");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        SeedScriptInitializer first = initializer(script, true);
+        first.initializeDatabase();
+        assertEquals(1, first.getAppliedCount());
+
+        SeedScriptInitializer second = initializer(script, true);
+        second.initializeDatabase();
+        assertEquals(0, second.getAppliedCount());
+        assertEquals(1, second.getSkippedCount());
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM runs", Integer.class));
+
+        // 内容变化后重新执行
+        Files.writeString(script, Files.readString(script) + "-- 修改\n");
+        initializer(script, true).initializeDatabase();
+        assertEquals(2, jdbc.queryForObject("SELECT COUNT(*) FROM runs", Integer.class));
+
+        // 关闭校验和时每次都执行
+        initializer(script, false).initializeDatabase();
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM runs", Integer.class));
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM seed_history", Integer.class));
+    }
+
+    @Test
+    void addsNewColumnsToExistingTables() throws Exception {
+        // 升级前的users表：没有新增的列和索引
+        Path script = dir.resolve("old.sql");
+        Files.writeString(script, "CREATE TABLE IF NOT EXISTS users (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "username VARCHAR(255) NOT NULL);\n"
+                + "INSERT INTO users (username) VALUES ('existing');\n");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        SeedScriptInitializer first = initializer(script, true);
+        first.initializeDatabase();
+        assertEquals(2 * SchemaUpgrades.COLUMNS.size(), first.getUpgradeCount());
+        for (SchemaUpgrades.ColumnUpgrade upgrade : SchemaUpgrades.COLUMNS) {
+            assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM information_schema.indexes "
+                    + "WHERE index_name = ?", Integer.class, upgrade.index().toUpperCase()));
+        }
+        assertEquals(0, jdbc.queryForObject("SELECT token_epoch FROM users WHERE username = 'existing'", Integer.class));
+        assertEquals(0, jdbc.queryForObject("SELECT profile_version FROM users WHERE username = 'existing'", Long.class));
+        assertEquals(0, jdbc.queryForObject("SELECT epoch_version FROM users WHERE username = 'existing'", Long.class));
+
+        // 脚本未变化被跳过时仍检查，已升级则不再执行
+        SeedScriptInitializer second = initializer(script, true);
+        second.initializeDatabase();
+        assertEquals(1, second.getSkippedCount());
+        assertEquals(0, second.getUpgradeCount());
+    }
+}
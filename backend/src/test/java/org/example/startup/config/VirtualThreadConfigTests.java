@@ -0,0 +1,23 @@
+package org.example.startup.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadConfigTests {
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void refusesToStartBelowJdk21() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, VirtualThreadConfig::new);
+        assertTrue(e.getMessage().contains("JDK 21"));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void startsOnJdk21() {
+        assertDoesNotThrow(VirtualThreadConfig::new);
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.startup.controller;
+
+import org.example.startup.security.PasswordHashingService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * 密码哈希线程池和队列都占满时，登录和注册立即返回503和Retry-After，而不是占住请求线程等待
+ */
+@SpringBootTest(properties = {
+        "security.password.pool-size=1",
+        "security.password.queue-capacity=1",
+        "security.password.retry-after-seconds=3"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PasswordHashingBackpressureTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Test
+    void answersServiceUnavailableWhenHashingPoolIsSaturated() throws Exception {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(
+                passwordHashingService, "executor");
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        long rejectedBefore = passwordHashingService.getRejectedCount();
+        try {
+            // 唯一的线程被占住，再占满唯一的队列位置
+            executor.execute(() -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> awaitQuietly(release));
+            assertEquals(1, passwordHashingService.getQueueDepth());
+
+            MvcResult register = submit("/api/user/register", "backpressure-user");
+            assertEquals(503, register.getResponse().getStatus());
+            assertEquals("3", register.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+
+            MvcResult login = submit("/api/user/login", "admin");
+            assertEquals(503, login.getResponse().getStatus());
+            assertEquals("3", login.getResponse().getHeader(HttpHeaders.RETRY_AFTER));
+
+            assertEquals(rejectedBefore + 2, passwordHashingService.getRejectedCount());
+        } finally {
+            release.countDown();
+        }
+
+        // 释放后恢复正常处理
+        assertEquals(200, submit("/api/user/register", "backpressure-user").getResponse().getStatus());
+    }
+
+    private MvcResult submit(String path, String username) throws Exception {
+        return mockMvc.perform(post(path)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\":\"" + username + "\",\"password\":\"password\"}"))
+                .andReturn();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
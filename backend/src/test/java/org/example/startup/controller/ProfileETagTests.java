@@ -0,0 +1,98 @@
+package org.example.startup.controller;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.startup.model.User;
+import org.example.startup.service.LastLoginWriter;
+import org.example.startup.service.ProfileCache;
+import org.example.startup.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * /api/user/profile 的条件请求：未变化时304且不访问数据库，资料变化后ETag随之变化
+ */
+// 关闭定时写入和轮询的干扰，由测试显式触发
+@SpringBootTest(properties = {
+        "security.last-login.flush-interval=3600000",
+        "profile.poll-interval=3600000"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ProfileETagTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ProfileCache profileCache;
+    @Autowired
+    private LastLoginWriter lastLoginWriter;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void answersNotModifiedUntilProfileChanges() throws Exception {
+        assertTrue(userService.register(new User("etag-user", "password")));
+        String token = token();
+
+        MvcResult first = profile(token, null);
+        assertEquals(200, first.getResponse().getStatus());
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(eTag);
+        assertTrue(first.getResponse().getContentAsString().contains("\"roles\":[\"USER\"]"));
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        MvcResult unchanged = profile(token, eTag);
+        assertEquals(304, unchanged.getResponse().getStatus());
+        assertEquals("", unchanged.getResponse().getContentAsString());
+        assertEquals(eTag, unchanged.getResponse().getHeader(HttpHeaders.ETAG));
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(304, profile(token, "W/" + eTag + ", \"other\"").getResponse().getStatus());
+
+        // 修改角色：本节点提交后立即失效（角色变化同时吊销旧令牌）
+        userService.addRoleToUser("etag-user", "MERCHANT");
+        token = token();
+        MvcResult changed = profile(token, eTag);
+        assertEquals(200, changed.getResponse().getStatus());
+        assertNotEquals(eTag, changed.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(changed.getResponse().getContentAsString().contains("MERCHANT"));
+        eTag = changed.getResponse().getHeader(HttpHeaders.ETAG);
+
+        // 最后登录时间由批量写入器写入，轮询后失效（与其他节点的修改走同一路径）
+        User user = userService.findByUsername("etag-user");
+        lastLoginWriter.record(user.getId(), LocalDateTime.now());
+        lastLoginWriter.flush();
+        assertEquals(304, profile(token, eTag).getResponse().getStatus());
+        profileCache.pollVersion();
+        MvcResult loggedIn = profile(token, eTag);
+        assertEquals(200, loggedIn.getResponse().getStatus());
+        assertFalse(loggedIn.getResponse().getContentAsString().contains("\"lastLogin\":null"));
+    }
+
+    private String token() {
+        return userService.generateToken(userService.login("etag-user", "password"));
+    }
+
+    private MvcResult profile(String token, String ifNoneMatch) throws Exception {
+        var request = get("/api/user/profile").header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        if (ifNoneMatch != null) {
+            request.header(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return mockMvc.perform(request).andReturn();
+    }
+}
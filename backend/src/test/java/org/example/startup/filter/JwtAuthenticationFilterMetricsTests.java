@@ -0,0 +1,120 @@
+package org.example.startup.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.example.startup.repository.CacheVersionRepository;
+import org.example.startup.repository.TokenEpochRepository;
+import org.example.startup.security.AuthMetrics;
+import org.example.startup.security.AuthorityRegistry;
+import org.example.startup.security.PermissionCodec;
+import org.example.startup.security.TokenAuthenticationCache;
+import org.example.startup.service.TokenEpochService;
+import org.example.startup.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtAuthenticationFilterMetricsTests {
+    private static final String SECRET =
+            "myVeryLongSecretKeyForHS512AlgorithmThatMustBeAtLeast64CharactersLong123456";
+
+    private SimpleMeterRegistry registry;
+    private JwtAuthenticationFilter filter;
+    private TokenEpochService tokenEpochs;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        AuthMetrics metrics = new AuthMetrics();
+        ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+        metrics.init();
+
+        filter = new JwtAuthenticationFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtil", newJwtUtil(SECRET, 60_000L));
+        ReflectionTestUtils.setField(filter, "tokenCache", new TokenAuthenticationCache());
+        ReflectionTestUtils.setField(filter, "authorityRegistry", new AuthorityRegistry());
+        ReflectionTestUtils.setField(filter, "permissionCodec", new PermissionCodec());
+        ReflectionTestUtils.setField(filter, "authMetrics", metrics);
+        tokenEpochs = new TokenEpochService();
+        ReflectionTestUtils.setField(filter, "tokenEpochs", tokenEpochs);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static JwtUtil newJwtUtil(String secret, long expiration) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "jwtSecret", secret);
+        ReflectionTestUtils.setField(util, "jwtExpiration", expiration);
+        util.init();
+        return util;
+    }
+
+    private static String tokenFor(JwtUtil jwtUtil) {
+        User user = new User("alice", "secret");
+        user.setId(7L);
+        user.getRoles().add(new Role("USER", "普通用户"));
+        return jwtUtil.generateToken(user);
+    }
+
+    private void send(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile");
+        if (token != null) {
+            request.addHeader("Authorization", "Bearer " + token);
+        }
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        SecurityContextHolder.clearContext();
+    }
+
+    private double outcome(String tag) {
+        return registry.get("auth.filter.requests").tag("outcome", tag).counter().count();
+    }
+
+    @Test
+    void recordsOutcomeAndStageTimingsPerRequest() throws Exception {
+        send(tokenFor(newJwtUtil(SECRET, 60_000L)));
+        send(tokenFor(newJwtUtil(SECRET, -1_000L)));
+        send(tokenFor(newJwtUtil(SECRET.replace('m', 'n'), 60_000L)));
+        send("not-a-jwt");
+        send(null);
+
+        assertEquals(1, outcome("valid"));
+        assertEquals(1, outcome("expired"));
+        assertEquals(1, outcome("bad-signature"));
+        assertEquals(1, outcome("malformed"));
+        assertEquals(1, outcome("absent"));
+        assertEquals(0, outcome("error"));
+
+        assertEquals(5, registry.get("auth.filter.stage").tag("stage", "token-extraction").timer().count());
+        assertEquals(4, registry.get("auth.filter.stage").tag("stage", "jwt-verification").timer().count());
+        assertEquals(1, registry.get("auth.filter.stage").tag("stage", "authority-building").timer().count());
+    }
+
+    @Test
+    void rejectsTokensIssuedBeforeEpochBump() throws Exception {
+        TokenEpochRepository epochRepository = mock(TokenEpochRepository.class);
+        when(epochRepository.increment(eq(7L), anyLong())).thenReturn(1);
+        ReflectionTestUtils.setField(tokenEpochs, "tokenEpochRepository", epochRepository);
+        ReflectionTestUtils.setField(tokenEpochs, "cacheVersionRepository", mock(CacheVersionRepository.class));
+        String oldToken = tokenFor(newJwtUtil(SECRET, 60_000L));
+
+        // 没有事务时立即生效
+        tokenEpochs.revoke(7L);
+        send(oldToken);
+
+        assertEquals(1, outcome("revoked"));
+        assertEquals(0, outcome("valid"));
+        assertEquals(1, tokenEpochs.currentEpoch(7L));
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.startup.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.startup.security.LoginThrottle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleFilterTests {
+    private LoginThrottle throttle;
+    private LoginThrottleFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        throttle = new LoginThrottle();
+        ReflectionTestUtils.setField(throttle, "enabled", true);
+        ReflectionTestUtils.setField(throttle, "usernameBurst", 3);
+        ReflectionTestUtils.setField(throttle, "usernamePerMinute", 1);
+        ReflectionTestUtils.setField(throttle, "addressBurst", 5);
+        ReflectionTestUtils.setField(throttle, "addressPerMinute", 1);
+        ReflectionTestUtils.setField(throttle, "maxKeys", 1000);
+        throttle.init();
+
+        filter = new LoginThrottleFilter();
+        ReflectionTestUtils.setField(filter, "loginThrottle", throttle);
+        ReflectionTestUtils.setField(filter, "objectMapper", new ObjectMapper());
+    }
+
+    private MockHttpServletResponse login(String address, String username, MockFilterChain chain) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/user/login");
+        request.setServletPath("/api/user/login");
+        request.setRemoteAddr(address);
+        request.setContentType("application/json");
+        request.setContent(("{\"username\":\"" + username + "\",\"password\":\"x\"}").getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, chain);
+        return response;
+    }
+
+    @Test
+    void throttlesUsernameAfterBurstAndReplaysBodyToController() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            MockFilterChain chain = new MockFilterChain();
+            assertEquals(200, login("10.0.0." + i, "Alice", chain).getStatus());
+            // 控制器仍能读到完整的请求体
+            String body = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(body.contains("\"username\":\"Alice\""));
+        }
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse throttled = login("10.0.0.9", "alice", chain);
+        assertEquals(429, throttled.getStatus());
+        assertNotNull(throttled.getHeader("Retry-After"));
+        assertNull(chain.getRequest(), "被限流的请求不应进入控制器");
+
+        assertEquals(200, login("10.0.0.9", "bob", new MockFilterChain()).getStatus());
+        assertEquals(1, throttle.getUsernameThrottledCount());
+    }
+
+    @Test
+    void throttlesAddressAcrossUsernames() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertEquals(200, login("10.0.0.1", "user" + i, new MockFilterChain()).getStatus());
+        }
+        assertEquals(429, login("10.0.0.1", "user9", new MockFilterChain()).getStatus());
+        assertEquals(1, throttle.getAddressThrottledCount());
+    }
+}
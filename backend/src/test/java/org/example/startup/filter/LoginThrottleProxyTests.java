@@ -0,0 +1,50 @@
+package org.example.startup.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 经受信任代理转发的登录请求按X-Forwarded-For中的客户端地址限流，而不是按代理地址
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.forward-headers-strategy=native",
+        // 按properties格式解析，正则中不使用反斜杠
+        "server.tomcat.remoteip.internal-proxies=127[.][0-9]+[.][0-9]+[.][0-9]+|0:0:0:0:0:0:0:1",
+        "security.login-throttle.address.burst=2",
+        "security.login-throttle.address.per-minute=1"
+})
+@ActiveProfiles("test")
+class LoginThrottleProxyTests {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void throttlesForwardedClientAddressNotTheProxy() {
+        assertNotEquals(429, login("203.0.113.1", "proxy-user-1"));
+        assertNotEquals(429, login("203.0.113.1", "proxy-user-2"));
+        assertEquals(429, login("203.0.113.1", "proxy-user-3"));
+
+        // 同一代理转发的其他客户端不受影响
+        assertNotEquals(429, login("203.0.113.2", "proxy-user-4"));
+        // 客户端伪造的前置地址不可信，取受信任代理追加的最后一个地址
+        assertEquals(429, login("198.51.100.7, 203.0.113.1", "proxy-user-5"));
+    }
+
+    private int login(String forwardedFor, String username) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", forwardedFor);
+        String body = "{\"username\":\"" + username + "\",\"password\":\"password\"}";
+        return restTemplate.postForEntity("/api/user/login", new HttpEntity<>(body, headers), String.class)
+                .getStatusCode().value();
+    }
+}
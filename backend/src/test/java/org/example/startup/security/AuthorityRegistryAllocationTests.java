@@ -0,0 +1,82 @@
+package org.example.startup.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.util.StringUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 权限列表构建的分配量对比：旧的逐请求构建 vs 注册表查表
+ */
+class AuthorityRegistryAllocationTests {
+    private static final String ROLES = "ADMIN";
+    private static final String PERMISSIONS = "USER_READ,USER_WRITE,USER_DELETE,ROLE_READ,ROLE_WRITE,ROLE_DELETE,"
+            + "PERMISSION_READ,PERMISSION_WRITE,PERMISSION_DELETE,SYSTEM_ADMIN,PRODUCT_READ,PRODUCT_WRITE,"
+            + "PRODUCT_DELETE,ORDER_READ,ORDER_WRITE,STORE_MANAGE";
+    private static final int ITERATIONS = 200_000;
+
+    // 消费结果，防止被JIT消除
+    private static int sink;
+
+    @Test
+    void registryReturnsSharedImmutableList() {
+        AuthorityRegistry registry = new AuthorityRegistry();
+
+        List<SimpleGrantedAuthority> first = registry.resolve(ROLES, PERMISSIONS);
+        List<SimpleGrantedAuthority> second = registry.resolve(new String(ROLES), new String(PERMISSIONS));
+
+        assertSame(first, second);
+        assertEquals(17, first.size());
+        assertEquals("ROLE_ADMIN", first.get(0).getAuthority());
+        assertSame(registry.permission("USER_READ"), first.get(1));
+        assertThrows(UnsupportedOperationException.class, () -> first.add(new SimpleGrantedAuthority("X")));
+    }
+
+    @Test
+    void registryAllocatesLessPerRequestThanRebuilding() {
+        AuthorityRegistry registry = new AuthorityRegistry();
+
+        long legacy = bytesPerOp(() -> legacyCreateAuthorities(ROLES, PERMISSIONS));
+        long interned = bytesPerOp(() -> registry.resolve(ROLES, PERMISSIONS));
+
+        assertTrue(interned * 10 < legacy, "registry=" + interned + " legacy=" + legacy);
+    }
+
+    private static long bytesPerOp(Supplier<List<SimpleGrantedAuthority>> op) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += op.get().size();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += op.get().size();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / ITERATIONS;
+    }
+
+    /**
+     * 引入注册表之前JwtAuthenticationFilter.createAuthorities的实现
+     */
+    private static List<SimpleGrantedAuthority> legacyCreateAuthorities(String roles, String permissions) {
+        List<SimpleGrantedAuthority> authorities = Arrays.stream(roles.split(","))
+                .filter(StringUtils::hasText)
+                .map(role -> new SimpleGrantedAuthority("ROLE_" + role.trim()))
+                .collect(Collectors.toList());
+        if (StringUtils.hasText(permissions)) {
+            authorities.addAll(Arrays.stream(permissions.split(","))
+                    .filter(StringUtils::hasText)
+                    .map(permission -> new SimpleGrantedAuthority(permission.trim()))
+                    .collect(Collectors.toList()));
+        }
+        return authorities;
+    }
+}
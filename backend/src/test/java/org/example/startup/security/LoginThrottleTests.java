@@ -0,0 +1,48 @@
+package org.example.startup.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoginThrottleTests {
+
+    private static LoginThrottle throttle(int addressBurst, int addressPerMinute, int maxKeys) {
+        LoginThrottle throttle = new LoginThrottle();
+        ReflectionTestUtils.setField(throttle, "enabled", true);
+        ReflectionTestUtils.setField(throttle, "usernameBurst", 5);
+        ReflectionTestUtils.setField(throttle, "usernamePerMinute", 5);
+        ReflectionTestUtils.setField(throttle, "addressBurst", addressBurst);
+        ReflectionTestUtils.setField(throttle, "addressPerMinute", addressPerMinute);
+        ReflectionTestUtils.setField(throttle, "maxKeys", maxKeys);
+        throttle.init();
+        return throttle;
+    }
+
+    @Test
+    void newKeysAreThrottledWhenFullOfActiveBuckets() {
+        LoginThrottle throttle = throttle(1, 1, 2);
+        assertEquals(0, throttle.acquireForAddress("10.0.0.1"));
+        assertEquals(0, throttle.acquireForAddress("10.0.0.2"));
+        assertTrue(throttle.acquireForAddress("10.0.0.1") > 0);
+
+        // 没有空闲桶：新键直接限流，已限流的桶不被淘汰
+        assertTrue(throttle.acquireForAddress("10.0.0.3") > 0);
+        assertEquals(2, throttle.getAddressKeyCount());
+        assertEquals(0, throttle.getEvictionCount());
+        assertTrue(throttle.acquireForAddress("10.0.0.1") > 0);
+    }
+
+    @Test
+    void idleBucketsMakeRoomForNewKeys() throws Exception {
+        // 每毫秒补充一个令牌，桶很快回满
+        LoginThrottle throttle = throttle(1, 60_000, 2);
+        assertEquals(0, throttle.acquireForAddress("10.0.0.1"));
+        assertEquals(0, throttle.acquireForAddress("10.0.0.2"));
+        Thread.sleep(20);
+
+        assertEquals(0, throttle.acquireForAddress("10.0.0.3"));
+        assertEquals(2, throttle.getEvictionCount());
+        assertEquals(1, throttle.getAddressKeyCount());
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.startup.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PasswordHashingServiceTests {
+
+    private PasswordHashingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new PasswordHashingService();
+        ReflectionTestUtils.setField(service, "poolSize", 1);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1);
+        ReflectionTestUtils.setField(service, "configuredStrength", 5);
+        service.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void rehashesOnlyWeakerOrForeignHashes() {
+        assertEquals(5, service.getStrength());
+        assertTrue(service.needsRehash(new BCryptPasswordEncoder(4).encode("password")));
+        assertFalse(service.needsRehash(new BCryptPasswordEncoder(5).encode("password")));
+        // 其他节点校准出更高强度时不降级
+        assertFalse(service.needsRehash(new BCryptPasswordEncoder(6).encode("password")));
+
+        // 非$2a$前缀或非BCrypt格式
+        assertTrue(service.needsRehash(new BCryptPasswordEncoder(BCryptPasswordEncoder.BCryptVersion.$2B, 6)
+                .encode("password")));
+        assertTrue(service.needsRehash("{noop}password"));
+        assertFalse(service.needsRehash(null));
+    }
+}
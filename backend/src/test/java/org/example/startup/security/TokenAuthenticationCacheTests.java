@@ -0,0 +1,70 @@
+package org.example.startup.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenAuthenticationCacheTests {
+    private static final List<SimpleGrantedAuthority> AUTHORITIES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    private TokenAuthenticationCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new TokenAuthenticationCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "maxSize", 10);
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        cache.put("token-a", "alice", 1L, AUTHORITIES, 0, System.currentTimeMillis() + 60_000);
+
+        TokenAuthenticationCache.Entry entry = cache.get("token-a");
+        assertNotNull(entry);
+        assertEquals("alice", entry.getUsername());
+        assertEquals(AUTHORITIES, entry.getAuthorities());
+        assertNull(cache.get("token-b"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    void expiredEntriesAreMissesAndPurged() throws Exception {
+        // 已过期的令牌不写入
+        cache.put("token-old", "alice", 1L, AUTHORITIES, 0, System.currentTimeMillis() - 1);
+        assertEquals(0, cache.size());
+
+        long expiresAt = System.currentTimeMillis() + 50;
+        cache.put("token-a", "alice", 1L, AUTHORITIES, 0, expiresAt);
+        cache.put("token-b", "bob", 2L, AUTHORITIES, 0, expiresAt);
+        Thread.sleep(100);
+
+        assertNull(cache.get("token-a"));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(1, cache.size());
+        cache.purgeExpired();
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getExpirationCount());
+    }
+
+    @Test
+    void evictsWhenFull() {
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        for (int i = 0; i < 10; i++) {
+            cache.put("token-" + i, "user-" + i, (long) i, AUTHORITIES, 0, expiresAt);
+        }
+        assertEquals(10, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+
+        cache.put("token-new", "new", 99L, AUTHORITIES, 0, expiresAt);
+        assertEquals(1, cache.getEvictionCount());
+        assertEquals(10, cache.size());
+        assertNotNull(cache.get("token-new"));
+    }
+}
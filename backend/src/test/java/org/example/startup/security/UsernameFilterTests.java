@@ -0,0 +1,93 @@
+package org.example.startup.security;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.startup.model.User;
+import org.example.startup.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用户名过滤器：不存在的用户名登录和注册不查库，其他节点注册的用户追赶后可登录，实测误判率接近目标
+ */
+// 关闭定时追赶的干扰，由测试显式触发
+@SpringBootTest(properties = "security.username-filter.poll-interval=3600000")
+@ActiveProfiles("test")
+class UsernameFilterTests {
+    private static final int USERS = 50_000;
+    private static final int UNKNOWN_NAMES = 100_000;
+
+    @Autowired
+    private UsernameFilter usernameFilter;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void unknownUsernamesSkipTheDatabase() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertNull(userService.login("filter-nobody", "password"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        // 注册：跳过存在性检查；注册后立即可以登录
+        long absent = usernameFilter.getAbsentCount();
+        assertTrue(userService.register(new User("filter-new", "password")));
+        assertEquals(absent + 1, usernameFilter.getAbsentCount());
+        assertNotNull(userService.login("filter-new", "password"));
+        // 与MySQL排序规则一致，大小写不同视为同一用户名
+        assertTrue(usernameFilter.mightContain("FILTER-NEW"));
+        assertTrue(usernameFilter.mightContain("admin"));
+    }
+
+    @Test
+    void otherNodesRegistrationsAreCaughtUp() {
+        // 模拟其他节点注册
+        jdbcTemplate.update("INSERT INTO users (username, password, enabled) VALUES ('filter-remote', 'x', TRUE)");
+        assertFalse(usernameFilter.mightContain("filter-remote"));
+        // 过滤器尚未追赶到时注册同名用户由唯一约束拒绝
+        assertFalse(userService.register(new User("filter-remote", "password")));
+
+        usernameFilter.catchUp();
+        assertTrue(usernameFilter.mightContain("filter-remote"));
+    }
+
+    @Test
+    void measuredFalsePositiveRateIsNearTarget() {
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[]{"filter-user-" + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password) VALUES (?, 'x')", rows);
+        usernameFilter.rebuild();
+        for (int i = 0; i < USERS; i++) {
+            assertTrue(usernameFilter.mightContain("filter-user-" + i));
+        }
+
+        long present = 0;
+        for (int i = 0; i < UNKNOWN_NAMES; i++) {
+            if (usernameFilter.mightContain("filter-unknown-" + i)) {
+                present++;
+            }
+        }
+        double rate = (double) present / UNKNOWN_NAMES;
+        // 设计容量为用户数的两倍，实测误判率应接近按条目数估算的值，且低于目标误判率（默认1%）
+        assertTrue(rate < usernameFilter.getExpectedFpp() * 2 + 0.001, "measured fpp " + rate);
+        assertTrue(rate < 0.01, "measured fpp " + rate);
+        // 设计容量（最大用户ID的两倍）× 每个用户名约9.6位（目标误判率1%）
+        long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class);
+        assertTrue(usernameFilter.getBytes() <= maxId * 2 * 10 / 8 + 1024, "bytes " + usernameFilter.getBytes());
+    }
+}
@@ -0,0 +1,72 @@
+package org.example.startup.service;
+
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.example.startup.security.PermissionCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class AuthorizationSnapshotCacheTests {
+
+    private AuthorizationSnapshotCache cache;
+
+    @BeforeEach
+    void setUp() {
+        PermissionCodec permissionCodec = mock(PermissionCodec.class);
+        when(permissionCodec.toBitSet(anyCollection())).thenReturn(new BitSet());
+        RbacGraphService rbacGraph = mock(RbacGraphService.class);
+        when(rbacGraph.getPermissionNames(any())).thenReturn(Set.of());
+
+        cache = new AuthorizationSnapshotCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        ReflectionTestUtils.setField(cache, "permissionCodec", permissionCodec);
+        ReflectionTestUtils.setField(cache, "rbacGraph", rbacGraph);
+    }
+
+    @Test
+    void cachesSnapshotLoadedWithoutConcurrentInvalidation() {
+        long generation = cache.currentGeneration();
+        assertTrue(cache.put("alice", user("alice"), generation).hasRole("USER"));
+        assertNotNull(cache.get("alice"));
+
+        // 加载开始后发生过失效：结果照常返回但不缓存
+        generation = cache.currentGeneration();
+        cache.invalidate(List.of("alice"));
+        assertTrue(cache.put("alice", user("alice"), generation).hasRole("USER"));
+        assertNull(cache.get("alice"));
+    }
+
+    @Test
+    void withdrawsStaleSnapshotWhenInvalidatedBetweenCheckAndPut() {
+        // 代数检查已通过、尚未写入时，另一线程完成失效（先递增代数再删除）
+        ReflectionTestUtils.setField(cache, "snapshots", new ConcurrentHashMap<String, AuthorizationSnapshotCache.Snapshot>() {
+            @Override
+            public AuthorizationSnapshotCache.Snapshot put(String key, AuthorizationSnapshotCache.Snapshot value) {
+                cache.invalidate(List.of(key));
+                return super.put(key, value);
+            }
+        });
+
+        cache.put("alice", user("alice"), cache.currentGeneration());
+
+        assertNull(cache.get("alice"));
+        assertEquals(0, cache.size());
+    }
+
+    private static User user(String username) {
+        User user = new User(username, "x");
+        user.setRoles(Set.of(new Role("USER", null)));
+        return user;
+    }
+}
@@ -0,0 +1,130 @@
+package org.example.startup.service;
+
+import org.example.startup.dto.AssignmentResult;
+import org.example.startup.dto.RolePermissionAssignment;
+import org.example.startup.dto.UserRoleAssignment;
+import org.example.startup.repository.RbacAssignmentRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * 批量分配角色和权限：逐项结果、批量写入和精确失效
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkAssignmentTests {
+    private static final int USERS = 1_500;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private TokenEpochService tokenEpochs;
+    @Autowired
+    private RbacGraphService rbacGraph;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @MockitoSpyBean
+    private RbacAssignmentRepository assignmentRepository;
+
+    @Test
+    void assignsRolesInBulkAndRevokesOnlyChangedUsers() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            rows.add(new Object[]{"bulk-" + i, "x"});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO users (username, password) VALUES (?, ?)", rows);
+        long firstId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'bulk-0'", Long.class);
+        long lastId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'bulk-1'", Long.class);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = 'MERCHANT'", lastId);
+        // 预先缓存授权快照，验证分配后被失效
+        assertFalse(userService.hasRole("bulk-0", "MERCHANT"));
+
+        List<UserRoleAssignment> assignments = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            assignments.add(new UserRoleAssignment("bulk-" + i, "MERCHANT"));
+        }
+        assignments.add(new UserRoleAssignment("bulk-0", "MERCHANT"));
+        assignments.add(new UserRoleAssignment("nobody", "MERCHANT"));
+        assignments.add(new UserRoleAssignment("bulk-2", "NO_SUCH_ROLE"));
+        assignments.add(null);
+
+        List<AssignmentResult> results = userService.assignRoles(assignments);
+
+        assertEquals(assignments.size(), results.size());
+        assertEquals(AssignmentResult.Status.CREATED, results.get(0).getStatus());
+        assertEquals(AssignmentResult.Status.EXISTS, results.get(1).getStatus());
+        assertEquals(AssignmentResult.Status.EXISTS, results.get(USERS).getStatus());
+        assertEquals("用户不存在: nobody", results.get(USERS + 1).getMessage());
+        assertEquals("角色不存在: NO_SUCH_ROLE", results.get(USERS + 2).getMessage());
+        assertFalse(results.get(USERS + 3).isSuccess());
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+        }
+
+        assertEquals(USERS, roleService.countRoleMembers("MERCHANT"));
+        assertTrue(userService.hasRole("bulk-0", "MERCHANT"));
+        assertEquals(1, tokenEpochs.currentEpoch(firstId));
+        // 已拥有该角色的用户令牌不受影响
+        assertEquals(0, tokenEpochs.currentEpoch(lastId));
+    }
+
+    @Test
+    void concurrentlyInsertedAssociationsAreReportedAsExisting() {
+        jdbcTemplate.update("INSERT INTO users (username, password) VALUES ('bulk-race', 'x')");
+        long userId = jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = 'bulk-race'", Long.class);
+        // 模拟并发请求：读取已有关联之后、批量插入之前，同一关联已被插入
+        doAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Map<Long, Set<Long>> existing = (Map<Long, Set<Long>>) invocation.callRealMethod();
+            jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles "
+                    + "WHERE name = 'ADMIN'", userId);
+            return existing;
+        }).when(assignmentRepository).findUserRoles(anyCollection());
+
+        List<AssignmentResult> results = userService.assignRoles(List.of(
+                new UserRoleAssignment("bulk-race", "ADMIN"),
+                new UserRoleAssignment("bulk-race", "USER")));
+
+        assertEquals(AssignmentResult.Status.EXISTS, results.get(0).getStatus());
+        assertEquals(AssignmentResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_roles WHERE user_id = ?", Integer.class, userId));
+    }
+
+    @Test
+    void assignsPermissionsInBulkAndRebuildsRbacGraphOnce() {
+        long version = rbacGraph.getGraph().getVersion();
+        List<AssignmentResult> results = roleService.assignPermissions(List.of(
+                new RolePermissionAssignment("MERCHANT", "ORDER_READ"),
+                new RolePermissionAssignment("MERCHANT", "USER_DELETE"),
+                new RolePermissionAssignment("MERCHANT", "USER_DELETE"),
+                new RolePermissionAssignment("MERCHANT", "NO_SUCH_PERMISSION")));
+
+        assertTrue(results.get(0).isSuccess());
+        assertEquals(AssignmentResult.Status.CREATED, results.get(1).getStatus());
+        assertEquals(AssignmentResult.Status.EXISTS, results.get(2).getStatus());
+        assertEquals(AssignmentResult.Status.FAILED, results.get(3).getStatus());
+        assertTrue(rbacGraph.getGraph().getVersion() > version);
+        assertTrue(rbacGraph.getGraph().getRole("MERCHANT").getPermissionNames().contains("USER_DELETE"));
+
+        // 全部已存在时不再递增RBAC版本
+        version = rbacGraph.getGraph().getVersion();
+        roleService.assignPermissions(List.of(new RolePermissionAssignment("MERCHANT", "USER_DELETE")));
+        assertEquals(version, rbacGraph.getGraph().getVersion());
+    }
+}
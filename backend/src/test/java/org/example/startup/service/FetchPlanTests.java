@@ -0,0 +1,103 @@
+package org.example.startup.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 按用例的抓取计划：SQL语句数固定，不随角色数和权限数增长（出现N+1时失败）
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class FetchPlanTests {
+    private static final int EXTRA_ROLES = 10;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RbacGraphService rbacGraph;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void loginAndProfileLoadUserWithRolesInOneStatement() {
+        assertTrue(userService.register(new User("fetch-plan", "password")));
+        // 再分配若干带权限的角色
+        seedRoles("FETCH_PLAN_ROLE_", EXTRA_ROLES);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u, roles r "
+                + "WHERE u.username = 'fetch-plan' AND r.name LIKE 'FETCH_PLAN_ROLE_%'");
+
+        statistics.clear();
+        User user = userService.login("fetch-plan", "password");
+        assertNotNull(user);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertLoadedWithRolesOnly(user);
+
+        statistics.clear();
+        User profile = userService.findByUsername("fetch-plan");
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertLoadedWithRolesOnly(profile);
+    }
+
+    @Test
+    void existenceCheckLoadsNoEntities() {
+        statistics.clear();
+        assertFalse(userService.register(new User("admin", "password")));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void rbacGraphReloadStaysFlatAsRolesGrow() {
+        long small = reloadStatements();
+        seedRoles("FETCH_PLAN_GRAPH_", EXTRA_ROLES);
+        long large = reloadStatements();
+
+        // 角色连同权限一次，权限表一次
+        assertEquals(2, small);
+        assertEquals(small, large);
+        assertTrue(rbacGraph.getGraph().getRole("FETCH_PLAN_GRAPH_0").getPermissionNames().contains("USER_READ"));
+    }
+
+    private long reloadStatements() {
+        statistics.clear();
+        rbacGraph.markChanged();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void assertLoadedWithRolesOnly(User user) {
+        assertTrue(Hibernate.isInitialized(user.getRoles()));
+        assertEquals(EXTRA_ROLES + 1, user.getRoles().size());
+        for (Role role : user.getRoles()) {
+            assertFalse(Hibernate.isInitialized(role.getPermissions()));
+        }
+    }
+
+    private void seedRoles(String prefix, int count) {
+        for (int i = 0; i < count; i++) {
+            jdbcTemplate.update("INSERT INTO roles (name, description) VALUES (?, 'x')", prefix + i);
+        }
+        jdbcTemplate.update("INSERT INTO role_permissions (role_id, permission_id) SELECT r.id, p.id FROM roles r, permissions p "
+                + "WHERE r.name LIKE ? AND p.name = 'USER_READ'", prefix + "%");
+    }
+}
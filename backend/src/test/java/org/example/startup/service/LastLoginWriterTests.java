@@ -0,0 +1,134 @@
+package org.example.startup.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class LastLoginWriterTests {
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private LastLoginWriter writer;
+    // 每次batchUpdate的参数：{last_login, profile_version, id}
+    private final List<List<Object[]>> batches = new CopyOnWriteArrayList<>();
+    private final Answer<int[]> capture = invocation -> {
+        List<Object[]> args = invocation.getArgument(1);
+        batches.add(List.copyOf(args));
+        return new int[args.size()];
+    };
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(capture).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        ProfileCache profileCache = mock(ProfileCache.class);
+        when(profileCache.nextVersion()).thenReturn(42L, 43L, 44L);
+
+        writer = new LastLoginWriter();
+        ReflectionTestUtils.setField(writer, "batchSize", 100);
+        ReflectionTestUtils.setField(writer, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(writer, "profileCache", profileCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    void coalescesToLatestLoginAndStampsProfileVersion() {
+        writer.record(1L, T0.plusMinutes(5));
+        writer.record(1L, T0);
+        writer.record(2L, T0);
+        assertEquals(2, writer.getPendingCount());
+        assertEquals(3, writer.getRecordedCount());
+
+        writer.flush();
+
+        assertEquals(1, batches.size());
+        Map<Long, Object[]> rows = rowsById(batches.get(0));
+        assertEquals(Timestamp.valueOf(T0.plusMinutes(5)), rows.get(1L)[0]);
+        assertEquals(Timestamp.valueOf(T0), rows.get(2L)[0]);
+        // 同一批共用一个资料版本号
+        assertEquals(42L, rows.get(1L)[1]);
+        assertEquals(42L, rows.get(2L)[1]);
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(2, writer.getWrittenCount());
+        assertEquals(1, writer.getBatchCount());
+    }
+
+    @Test
+    void flushesInBackgroundWhenBatchSizeIsReached() {
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        writer.record(1L, T0);
+        assertTrue(batches.isEmpty());
+
+        writer.record(2L, T0);
+
+        verify(jdbcTemplate, timeout(5000)).batchUpdate(anyString(), anyList());
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void requeuesFailedBatchWithoutOverwritingNewerLogin() {
+        doAnswer(invocation -> {
+            // 写入期间同一用户再次登录
+            writer.record(1L, T0.plusMinutes(10));
+            throw new DataAccessResourceFailureException("数据库不可用");
+        }).doAnswer(capture).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        writer.record(1L, T0);
+        writer.record(2L, T0);
+
+        writer.flush();
+        assertEquals(2, writer.getPendingCount());
+        assertEquals(0, writer.getWrittenCount());
+
+        writer.flush();
+        Map<Long, Object[]> rows = rowsById(batches.get(0));
+        assertEquals(Timestamp.valueOf(T0.plusMinutes(10)), rows.get(1L)[0]);
+        assertEquals(Timestamp.valueOf(T0), rows.get(2L)[0]);
+        assertEquals(2, writer.getWrittenCount());
+    }
+
+    @Test
+    void flushesRemainingRecordsOnShutdown() {
+        writer.record(1L, T0);
+
+        writer.shutdown();
+
+        assertEquals(1, batches.size());
+        assertEquals(1L, batches.get(0).get(0)[2]);
+        assertEquals(0, writer.getPendingCount());
+    }
+
+    private static Map<Long, Object[]> rowsById(List<Object[]> rows) {
+        Map<Long, Object[]> byId = new HashMap<>();
+        for (Object[] row : rows) {
+            byId.put((Long) row[2], row);
+        }
+        return byId;
+    }
+}
@@ -0,0 +1,67 @@
+package org.example.startup.service;
+
+import org.example.startup.model.User;
+import org.example.startup.repository.CacheVersionRepository;
+import org.example.startup.repository.ProfileVersionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class ProfileCacheTests {
+
+    private ProfileCache cache;
+
+    @BeforeEach
+    void setUp() {
+        CacheVersionRepository cacheVersionRepository = mock(CacheVersionRepository.class);
+        when(cacheVersionRepository.incrementAndGet(anyString())).thenReturn(1L, 2L, 3L);
+
+        cache = new ProfileCache();
+        ReflectionTestUtils.setField(cache, "maxSize", 100);
+        ReflectionTestUtils.setField(cache, "cacheVersionRepository", cacheVersionRepository);
+        ReflectionTestUtils.setField(cache, "profileVersionRepository", mock(ProfileVersionRepository.class));
+    }
+
+    @Test
+    void cachesProfileLoadedWithoutConcurrentInvalidation() {
+        long generation = cache.currentGeneration();
+        assertEquals("\"1-0\"", cache.put("alice", user(1L, "alice"), generation).getETag());
+        assertNotNull(cache.get("alice"));
+
+        // 加载开始后发生过失效：结果照常返回但不缓存
+        generation = cache.currentGeneration();
+        cache.markChanged(Map.of(1L, "alice"));
+        assertNotNull(cache.put("alice", user(1L, "alice"), generation));
+        assertNull(cache.get("alice"));
+    }
+
+    @Test
+    void withdrawsStaleProfileWhenInvalidatedBetweenCheckAndPut() {
+        // 代数检查已通过、尚未写入时，另一线程完成失效（先递增代数再删除）
+        ReflectionTestUtils.setField(cache, "profiles", new ConcurrentHashMap<String, ProfileCache.Profile>() {
+            @Override
+            public ProfileCache.Profile put(String key, ProfileCache.Profile value) {
+                cache.markChanged(Map.of(1L, key));
+                return super.put(key, value);
+            }
+        });
+
+        cache.put("alice", user(1L, "alice"), cache.currentGeneration());
+
+        assertNull(cache.get("alice"));
+        assertEquals(0, cache.size());
+    }
+
+    private static User user(long id, String username) {
+        User user = new User(username, "x");
+        user.setId(id);
+        return user;
+    }
+}
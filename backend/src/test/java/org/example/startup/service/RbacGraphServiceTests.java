@@ -0,0 +1,82 @@
+package org.example.startup.service;
+
+import org.example.startup.security.PermissionCodec;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * RBAC图轮询：其他节点递增rbac版本号后重建快照，并失效授权快照和权限表
+ */
+// 关闭定时轮询的干扰，由测试显式触发
+@SpringBootTest(properties = "rbac.poll-interval=3600000")
+@ActiveProfiles("test")
+class RbacGraphServiceTests {
+
+    @Autowired
+    private RbacGraphService rbacGraph;
+    @Autowired
+    private AuthorizationSnapshotCache authorizationCache;
+    @Autowired
+    private PermissionCodec permissionCodec;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM roles WHERE name = 'POLL_ROLE'");
+        jdbcTemplate.update("DELETE FROM permissions WHERE name = 'poll:read'");
+        bumpVersion();
+        rbacGraph.pollVersion();
+    }
+
+    @Test
+    void pollRebuildsGraphAndClearsDependentCaches() {
+        rbacGraph.pollVersion();
+        RbacGraphService.Graph before = rbacGraph.getGraph();
+        // 填充授权快照和权限表
+        assertTrue(userService.hasRole("admin", "ADMIN"));
+        assertTrue(authorizationCache.size() > 0);
+        permissionCodec.getVersion();
+        assertNotNull(ReflectionTestUtils.getField(permissionCodec, "table"));
+
+        // 版本号未变化时不重建
+        rbacGraph.pollVersion();
+        assertSame(before, rbacGraph.getGraph());
+
+        // 模拟其他节点：直接写入角色和权限，递增版本号
+        jdbcTemplate.update("INSERT INTO roles (name, description) VALUES ('POLL_ROLE', 'poll')");
+        jdbcTemplate.update("INSERT INTO permissions (name, resource, action) VALUES ('poll:read', 'poll', 'read')");
+        jdbcTemplate.update("INSERT INTO role_permissions (role_id, permission_id) "
+                + "SELECT r.id, p.id FROM roles r, permissions p WHERE r.name = 'POLL_ROLE' AND p.name = 'poll:read'");
+        long version = bumpVersion();
+        assertNull(rbacGraph.getGraph().getRole("POLL_ROLE"));
+
+        rbacGraph.pollVersion();
+        RbacGraphService.Graph after = rbacGraph.getGraph();
+        assertNotSame(before, after);
+        assertEquals(version, after.getVersion());
+        assertNotNull(after.getRole("POLL_ROLE"));
+        assertEquals(Set.of("poll:read"), rbacGraph.getPermissionNames(List.of("POLL_ROLE")));
+        assertEquals(0, authorizationCache.size());
+        assertNull(ReflectionTestUtils.getField(permissionCodec, "table"));
+        // 重新加载的权限表包含新权限
+        assertTrue(permissionCodec.indexOf("poll:read") >= 0);
+    }
+
+    private long bumpVersion() {
+        jdbcTemplate.update("UPDATE cache_versions SET version = version + 1 WHERE name = 'rbac'");
+        return jdbcTemplate.queryForObject("SELECT version FROM cache_versions WHERE name = 'rbac'", Long.class);
+    }
+}
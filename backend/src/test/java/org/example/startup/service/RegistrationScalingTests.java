@@ -0,0 +1,90 @@
+package org.example.startup.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 注册、角色分配和删除角色的开销不随角色成员数增长（按语句数和实体加载数判断，不比较耗时）
+ */
+// 使用独立的数据库，写入的大量角色成员不影响共用数据库的其他测试
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:registration-scaling;"
+        + "MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1")
+@ActiveProfiles("test")
+class RegistrationScalingTests {
+    private static final int MEMBERS = 20_000;
+    private static final int SAMPLES = 5;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void registrationStaysFlatAsUserRoleGrows() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        // 预热：加载RBAC快照
+        register("warmup", statistics);
+
+        Sample small = register("small", statistics);
+        seedUserRoleMembers(MEMBERS);
+        Sample large = register("large", statistics);
+
+        assertTrue(large.members >= small.members + MEMBERS);
+        assertEquals(small.statements, large.statements);
+        assertEquals(small.entityLoads, large.entityLoads);
+        assertEquals(0, large.memberLoads);
+
+        // 删除仍有成员的角色：存在性查询，不加载成员
+        statistics.clear();
+        assertThrows(RuntimeException.class, () -> roleService.deleteRole("USER"));
+        assertEquals(0, memberLoads(statistics));
+        assertEquals(large.members, roleService.countRoleMembers("USER"));
+    }
+
+    private Sample register(String prefix, Statistics statistics) {
+        statistics.clear();
+        for (int i = 0; i < SAMPLES; i++) {
+            assertTrue(userService.register(new User(prefix + "-" + i, "password")));
+        }
+        assertTrue(userService.hasRole(prefix + "-0", "USER"));
+        return new Sample(roleService.countRoleMembers("USER"),
+                statistics.getPrepareStatementCount(), statistics.getEntityLoadCount(),
+                memberLoads(statistics));
+    }
+
+    // Role.users反向集合的加载次数
+    private static long memberLoads(Statistics statistics) {
+        return statistics.getCollectionStatistics(Role.class.getName() + ".users").getLoadCount();
+    }
+
+    private void seedUserRoleMembers(int count) {
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"member-" + i});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, password, enabled, created_at) VALUES (?, 'x', TRUE, NOW())", rows);
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) "
+                + "SELECT u.id, r.id FROM users u, roles r WHERE u.username LIKE 'member-%' AND r.name = 'USER'");
+    }
+
+    private record Sample(long members, long statements, long entityLoads, long memberLoads) {
+    }
+}
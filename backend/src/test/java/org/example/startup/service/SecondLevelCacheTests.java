@@ -0,0 +1,119 @@
+package org.example.startup.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.example.startup.config.SecondLevelCacheConfig;
+import org.example.startup.dto.RolePermissionAssignment;
+import org.example.startup.model.Permission;
+import org.example.startup.model.User;
+import org.example.startup.repository.PermissionRepository;
+import org.example.startup.repository.RoleRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 角色和权限的二级缓存：按名称查找不再查库，本节点写入和其他节点的修改都能正确失效
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SecondLevelCacheTests {
+
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RbacGraphService rbacGraph;
+    @Autowired
+    private RoleRepository roleRepository;
+    @Autowired
+    private PermissionRepository permissionRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void byNameLookupsAreServedFromCache() {
+        lookups();
+        // 注册写user_roles的原生语句不应清空二级缓存
+        assertTrue(userService.register(new User("l2-cache-user", "password")));
+
+        statistics.clear();
+        lookups();
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(3, statistics.getQueryCacheHitCount());
+        assertTrue(meterRegistry.get("cache.gets").tag("cache", SecondLevelCacheConfig.ROLE_REGION)
+                .tag("result", "hit").functionCounter().count() > 0);
+    }
+
+    @Test
+    void roleServiceWritesEvictCachedRegions() {
+        roleService.createRole("L2_CACHE_ROLE", "before");
+        assertEquals("before", roleService.findByName("L2_CACHE_ROLE").orElseThrow().getDescription());
+        roleService.updateRole("L2_CACHE_ROLE", "after");
+        assertEquals("after", roleService.findByName("L2_CACHE_ROLE").orElseThrow().getDescription());
+
+        assertEquals(Set.of(), permissionNames("L2_CACHE_ROLE"));
+        statistics.clear();
+        assertEquals(Set.of(), permissionNames("L2_CACHE_ROLE"));
+        assertEquals(0, statistics.getPrepareStatementCount());
+
+        roleService.addPermissionToRole("L2_CACHE_ROLE", "USER_READ");
+        assertEquals(Set.of("USER_READ"), permissionNames("L2_CACHE_ROLE"));
+        // 批量分配直接用JDBC写入，依赖RBAC版本变化后的失效
+        roleService.assignPermissions(List.of(new RolePermissionAssignment("L2_CACHE_ROLE", "ORDER_READ")));
+        assertEquals(Set.of("USER_READ", "ORDER_READ"), permissionNames("L2_CACHE_ROLE"));
+        roleService.removePermissionFromRole("L2_CACHE_ROLE", "USER_READ");
+        assertEquals(Set.of("ORDER_READ"), permissionNames("L2_CACHE_ROLE"));
+    }
+
+    @Test
+    void otherNodesChangesAreEvictedOnVersionPoll() {
+        roleService.createRole("L2_REMOTE_ROLE", "before");
+        assertEquals("before", roleService.findByName("L2_REMOTE_ROLE").orElseThrow().getDescription());
+
+        // 模拟其他节点：直接改库并递增RBAC版本
+        jdbcTemplate.update("UPDATE roles SET description = 'remote' WHERE name = 'L2_REMOTE_ROLE'");
+        assertEquals("before", roleService.findByName("L2_REMOTE_ROLE").orElseThrow().getDescription());
+        jdbcTemplate.update("UPDATE cache_versions SET version = version + 1 WHERE name = 'rbac'");
+        rbacGraph.pollVersion();
+
+        assertEquals("remote", roleService.findByName("L2_REMOTE_ROLE").orElseThrow().getDescription());
+    }
+
+    private void lookups() {
+        assertTrue(roleService.findByName("ADMIN").isPresent());
+        assertTrue(permissionRepository.findByName("USER_READ").isPresent());
+        assertTrue(permissionRepository.findByResourceAndAction("user", "read").isPresent());
+    }
+
+    private Set<String> permissionNames(String roleName) {
+        return transactionTemplate.execute(status -> roleRepository.findByName(roleName).orElseThrow()
+                .getPermissions().stream().map(Permission::getName).collect(Collectors.toSet()));
+    }
+}
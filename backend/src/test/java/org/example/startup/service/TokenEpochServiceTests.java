@@ -0,0 +1,87 @@
+package org.example.startup.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 令牌纪元：轮询只加载其他节点此后吊销的用户并失效其授权快照，本节点的吊销立即生效并在轮询时并入主表
+ */
+// 关闭定时轮询的干扰，由测试显式触发
+@SpringBootTest(properties = "security.token-epoch.poll-interval=3600000")
+@ActiveProfiles("test")
+class TokenEpochServiceTests {
+
+    @Autowired
+    private TokenEpochService tokenEpochs;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pollLoadsOnlyUsersRevokedSinceLastPoll() {
+        long remote = insertUser("epoch-remote");
+        long untouched = insertUser("epoch-untouched");
+        tokenEpochs.pollVersion();
+
+        // 纪元版本不大于已轮询版本的行不再读取
+        jdbcTemplate.update("UPDATE users SET token_epoch = 5 WHERE id = ?", untouched);
+        // 模拟其他节点：递增版本号并写入用户纪元和纪元版本
+        jdbcTemplate.update("UPDATE cache_versions SET version = version + 1 WHERE name = 'token_epoch'");
+        long version = jdbcTemplate.queryForObject(
+                "SELECT version FROM cache_versions WHERE name = 'token_epoch'", Long.class);
+        jdbcTemplate.update("UPDATE users SET token_epoch = token_epoch + 1, epoch_version = ? WHERE id = ?",
+                version, remote);
+        assertEquals(0, tokenEpochs.currentEpoch(remote));
+
+        tokenEpochs.pollVersion();
+        assertEquals(1, tokenEpochs.currentEpoch(remote));
+        assertEquals(0, tokenEpochs.currentEpoch(untouched));
+    }
+
+    @Test
+    void localRevocationIsImmediateAndFoldedOnPoll() {
+        long userId = insertUser("epoch-local");
+        tokenEpochs.pollVersion();
+        int size = tokenEpochs.size();
+
+        // 没有事务时立即生效，先记入增量表，不复制主表
+        tokenEpochs.revoke(userId);
+        assertEquals(1, tokenEpochs.currentEpoch(userId));
+        assertTrue(tokenEpochs.isRevoked(userId, 0));
+        assertEquals(size, tokenEpochs.size());
+
+        tokenEpochs.pollVersion();
+        assertEquals(size + 1, tokenEpochs.size());
+        assertEquals(1, tokenEpochs.currentEpoch(userId));
+    }
+
+    @Test
+    void remoteRoleChangeInvalidatesAuthorizationSnapshot() {
+        long userId = insertUser("epoch-snapshot");
+        tokenEpochs.pollVersion();
+        // 缓存授权快照
+        assertFalse(userService.hasRole("epoch-snapshot", "MERCHANT"));
+
+        // 模拟其他节点为用户添加角色：写入关联并吊销令牌
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT ?, id FROM roles WHERE name = 'MERCHANT'",
+                userId);
+        jdbcTemplate.update("UPDATE cache_versions SET version = version + 1 WHERE name = 'token_epoch'");
+        jdbcTemplate.update("UPDATE users SET token_epoch = token_epoch + 1, epoch_version = "
+                + "(SELECT version FROM cache_versions WHERE name = 'token_epoch') WHERE id = ?", userId);
+        assertFalse(userService.hasRole("epoch-snapshot", "MERCHANT"));
+
+        tokenEpochs.pollVersion();
+        assertTrue(userService.hasRole("epoch-snapshot", "MERCHANT"));
+    }
+
+    private long insertUser(String username) {
+        jdbcTemplate.update("INSERT INTO users (username, password) VALUES (?, 'x')", username);
+        return jdbcTemplate.queryForObject("SELECT id FROM users WHERE username = ?", Long.class, username);
+    }
+}
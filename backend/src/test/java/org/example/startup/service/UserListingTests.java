@@ -0,0 +1,116 @@
+package org.example.startup.service;
+
+import org.example.startup.dto.UserPage;
+import org.example.startup.dto.UserSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 管理端用户列表：键集分页逐页覆盖全部匹配用户，且翻页深度不影响单页耗时
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UserListingTests {
+    private static final int USERS = 20_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int SAMPLES = 50;
+
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private RoleService roleService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        if (roleService.findByName("LISTING_ROLE").isPresent()) {
+            return;
+        }
+        roleService.createRole("LISTING_ROLE", "x");
+        List<Object[]> rows = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            // 每3个用户禁用1个
+            rows.add(new Object[]{String.format("listing-%05d", i), i % 3 != 0});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (username, password, enabled, created_at) VALUES (?, 'x', ?, NOW())", rows);
+        // 每7个用户有1个属于LISTING_ROLE
+        jdbcTemplate.update("INSERT INTO user_roles (user_id, role_id) SELECT u.id, r.id FROM users u, roles r "
+                + "WHERE u.username LIKE 'listing-%' AND MOD(u.id, 7) = 0 AND r.name = 'LISTING_ROLE'");
+    }
+
+    @Test
+    void pagesCoverEveryMatchingUserExactlyOnce() {
+        assertEquals(jdbcTemplate.queryForList("SELECT u.id FROM users u JOIN user_roles ur ON ur.user_id = u.id "
+                        + "JOIN roles r ON r.id = ur.role_id WHERE r.name = 'LISTING_ROLE' AND u.enabled = TRUE ORDER BY u.id",
+                        Long.class),
+                collect(true, "LISTING_ROLE", null).stream().map(UserSummary::getId).toList());
+        assertEquals(jdbcTemplate.queryForList(
+                        "SELECT username FROM users WHERE username LIKE 'listing-01%' AND enabled = FALSE ORDER BY username",
+                        String.class),
+                collect(false, null, "listing-01").stream().map(UserSummary::getUsername).toList());
+
+        UserSummary member = collect(null, "LISTING_ROLE", "listing-000").get(0);
+        assertEquals(List.of("LISTING_ROLE"), member.getRoles());
+        // LIKE通配符按字面匹配
+        assertTrue(collect(null, null, "listing_").isEmpty());
+    }
+
+    @Test
+    void rejectsInvalidCursorsAndUnknownRoles() {
+        String idCursor = userService.listUsers(null, 1, null, null, null).getNextCursor();
+        assertThrows(IllegalArgumentException.class, () -> userService.listUsers(idCursor, 1, null, null, "listing-"));
+        assertThrows(IllegalArgumentException.class, () -> userService.listUsers("not base64!", 1, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> userService.listUsers(cursor("iabc"), 1, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> userService.listUsers(null, 1, null, "NO_SUCH_ROLE", null));
+    }
+
+    @Test
+    void pageTimeDoesNotDependOnDepth() {
+        long deepId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM users", Long.class) - PAGE_SIZE * 2;
+        String deep = cursor("i" + deepId);
+        // 预热
+        time(null);
+        time(deep);
+
+        double shallowMillis = time(null);
+        double deepMillis = time(deep);
+        assertTrue(deepMillis < shallowMillis * 3 + 5, "deep=" + deepMillis + " shallow=" + shallowMillis);
+    }
+
+    private List<UserSummary> collect(Boolean enabled, String role, String usernamePrefix) {
+        List<UserSummary> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserPage page = userService.listUsers(cursor, PAGE_SIZE, enabled, role, usernamePrefix);
+            assertTrue(page.getItems().size() <= PAGE_SIZE);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return all;
+    }
+
+    private double time(String cursor) {
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            assertEquals(PAGE_SIZE, userService.listUsers(cursor, PAGE_SIZE, null, null, null).getItems().size());
+        }
+        return (System.nanoTime() - start) / 1e6 / SAMPLES;
+    }
+
+    private static String cursor(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,106 @@
+package org.example.startup.util;
+
+import org.example.startup.model.Permission;
+import org.example.startup.model.Role;
+import org.example.startup.model.User;
+import org.example.startup.repository.PermissionRepository;
+import org.example.startup.security.AuthorityRegistry;
+import org.example.startup.security.PermissionCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class JwtUtilTests {
+    private static final String SECRET =
+            "myVeryLongSecretKeyForHS512AlgorithmThatMustBeAtLeast64CharactersLong123456";
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = newJwtUtil(SECRET, 60_000L);
+    }
+
+    static JwtUtil newJwtUtil(String secret, long expiration) {
+        JwtUtil util = new JwtUtil();
+        ReflectionTestUtils.setField(util, "jwtSecret", secret);
+        ReflectionTestUtils.setField(util, "jwtExpiration", expiration);
+        util.init();
+        return util;
+    }
+
+    static Permission permission(long id, String name) {
+        Permission permission = new Permission(name, null, null, null);
+        permission.setId(id);
+        return permission;
+    }
+
+    static User adminUser() {
+        Role role = new Role("ADMIN", "管理员");
+        role.getPermissions().add(permission(1L, "USER_READ"));
+        role.getPermissions().add(permission(2L, "USER_WRITE"));
+        User user = new User("admin", "secret");
+        user.setId(1L);
+        user.getRoles().add(role);
+        return user;
+    }
+
+    @Test
+    void verifyTokenReturnsClaimsOfValidToken() {
+        String token = jwtUtil.generateToken(adminUser());
+
+        VerifiedToken verified = jwtUtil.verifyToken(token);
+
+        assertEquals(TokenStatus.VALID, verified.getStatus());
+        assertEquals("admin", verified.getUsername());
+        assertEquals(1L, verified.getUserId());
+        assertEquals("ADMIN", verified.getRoles());
+        assertTrue(verified.getPermissions().contains("USER_READ"));
+        assertTrue(verified.getExpiresAtMillis() > System.currentTimeMillis());
+    }
+
+    @Test
+    void verifyTokenReportsFailuresAsStatus() {
+        assertEquals(TokenStatus.EMPTY, jwtUtil.verifyToken("").getStatus());
+        assertEquals(TokenStatus.MALFORMED, jwtUtil.verifyToken("not-a-jwt").getStatus());
+
+        String expired = newJwtUtil(SECRET, -1_000L).generateToken(adminUser());
+        assertEquals(TokenStatus.EXPIRED, jwtUtil.verifyToken(expired).getStatus());
+
+        String foreign = newJwtUtil(SECRET.replace('m', 'n'), 60_000L).generateToken(adminUser());
+        assertEquals(TokenStatus.BAD_SIGNATURE, jwtUtil.verifyToken(foreign).getStatus());
+    }
+
+    @Test
+    void compactTokenCarriesPermissionBitmap() {
+        PermissionRepository repository = mock(PermissionRepository.class);
+        when(repository.findAll()).thenAnswer(invocation -> new ArrayList<>(List.of(
+                permission(1L, "USER_READ"), permission(2L, "USER_WRITE"), permission(3L, "USER_DELETE"))));
+        PermissionCodec codec = new PermissionCodec();
+        ReflectionTestUtils.setField(codec, "permissionRepository", repository);
+        AuthorityRegistry registry = new AuthorityRegistry();
+        ReflectionTestUtils.setField(codec, "authorityRegistry", registry);
+        ReflectionTestUtils.setField(jwtUtil, "permissionCodec", codec);
+        ReflectionTestUtils.setField(jwtUtil, "compactPermissions", true);
+
+        VerifiedToken verified = jwtUtil.verifyToken(jwtUtil.generateToken(adminUser()));
+
+        assertTrue(verified.hasCompactPermissions());
+        assertNull(verified.getPermissions());
+        assertEquals(codec.getVersion(), verified.getPermissionVersion());
+        List<SimpleGrantedAuthority> authorities =
+                codec.resolve(verified.getRoles(), verified.getPermissionVersion(), verified.getPermissionBits());
+        assertEquals(List.of(registry.role("ADMIN"), registry.permission("USER_READ"), registry.permission("USER_WRITE")),
+                authorities);
+        // 同一角色串和位图解析为同一个共享列表
+        assertSame(authorities,
+                codec.resolve(verified.getRoles(), verified.getPermissionVersion(), verified.getPermissionBits()));
+    }
+}